@@ -0,0 +1,33 @@
+package net.chrisgrollier.cloud.apps.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Main class of the benchmarks jar: runs JMH with the given arguments,
+ * writing results as JSON to {@value #DEFAULT_RESULT_FILE} unless the
+ * {@code -rf} or {@code -rff} options are given, so that results of
+ * successive builds can be compared.
+ */
+public class BenchmarkRunner {
+
+	/** default results file */
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		final List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		if (!arguments.contains("-rf")) {
+			arguments.add("-rf");
+			arguments.add("json");
+		}
+		if (!arguments.contains("-rff")) {
+			arguments.add("-rff");
+			arguments.add(DEFAULT_RESULT_FILE);
+		}
+		Main.main(arguments.toArray(new String[arguments.size()]));
+	}
+
+}
@@ -0,0 +1,77 @@
+package net.chrisgrollier.cloud.apps.benchmarks.aop;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+
+import net.chrisgrollier.cloud.apps.sample.user.aop.UserTimingAspect;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapper;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapperImpl;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+
+/**
+ * Measures the per call overhead of the {@link UserTimingAspect} on a short
+ * method, the mapping of a user: {@code timed} minus {@code proxied} is the
+ * cost of the aspect itself (join point, two {@code System.nanoTime()} calls
+ * and histogram recording), {@code proxied} minus {@code direct} the cost of
+ * the Spring AOP proxy that any advice, such as transactions, already implies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TimingAspectBenchmark {
+
+	private final UserEntity entity = new UserEntity();
+
+	private UserModelEntityMapper direct;
+
+	private UserModelEntityMapper proxied;
+
+	private UserModelEntityMapper timed;
+
+	@Setup
+	public void setUp() {
+		entity.setUsername("user");
+		direct = new UserModelEntityMapperImpl();
+		final ProxyFactory proxyFactory = new ProxyFactory(new UserModelEntityMapperImpl());
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> invocation.proceed());
+		proxied = (UserModelEntityMapper) proxyFactory.getProxy();
+		final AspectJProxyFactory aspectJProxyFactory = new AspectJProxyFactory(new UserModelEntityMapperImpl());
+		aspectJProxyFactory.setProxyTargetClass(true);
+		aspectJProxyFactory.addAspect(new UserTimingAspect());
+		timed = aspectJProxyFactory.getProxy();
+	}
+
+	@Benchmark
+	public User direct() {
+		return direct.from(entity);
+	}
+
+	@Benchmark
+	public User proxied() {
+		return proxied.from(entity);
+	}
+
+	@Benchmark
+	public User timed() {
+		return timed.from(entity);
+	}
+
+}
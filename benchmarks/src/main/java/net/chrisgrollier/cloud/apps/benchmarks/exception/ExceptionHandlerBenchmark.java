@@ -0,0 +1,71 @@
+package net.chrisgrollier.cloud.apps.benchmarks.exception;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import net.chrisgrollier.cloud.apps.benchmarks.i18n.MessageManagerBenchmark;
+import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponse;
+import net.chrisgrollier.cloud.apps.common.exception.handler.ServiceExceptionHandler;
+import net.chrisgrollier.cloud.apps.common.exception.service.EntityNotFoundUnrecoverableException;
+
+/**
+ * Measures the handling of a functional exception into an
+ * {@link ExceptionResponse} by the {@link ServiceExceptionHandler}, when the
+ * message key is found and when it is not, the message being then formatted
+ * from the exception message, by the default and the caching message
+ * managers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExceptionHandlerBenchmark {
+
+	@Param({ "en", "fr" })
+	private String locale;
+
+	@Param({ "default", "caching" })
+	private String manager;
+
+	private ServiceExceptionHandler handler;
+
+	@Setup
+	public void setUp() {
+		LocaleContextHolder.setLocale(Locale.forLanguageTag(locale));
+		handler = new ServiceExceptionHandler(HttpStatus.NOT_FOUND,
+				MessageManagerBenchmark.messageManager("caching".equals(manager)));
+	}
+
+	/**
+	 * The exception is created by the benchmark, as in the request path.
+	 */
+	@Benchmark
+	public ResponseEntity<ExceptionResponse> handleKnownKey() {
+		return handler.handle(
+				new EntityNotFoundUnrecoverableException("Could not find user with id = {0}", "user.not.found", 42));
+	}
+
+	@Benchmark
+	public ResponseEntity<ExceptionResponse> handleMissingKey() {
+		return handler.handle(
+				new EntityNotFoundUnrecoverableException("Could not find user with id = {0}", "no.such.key", 42));
+	}
+
+}
@@ -0,0 +1,74 @@
+package net.chrisgrollier.cloud.apps.benchmarks.exception;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponse;
+import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponseWriter;
+
+/**
+ * Measures the serialization of error bodies by Jackson data binding, as done
+ * by message converters, and by the {@link ExceptionResponseWriter}, for a
+ * status only response, which is pre-serialized, and for a response holding a
+ * message and field errors, which is streamed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExceptionResponseWriterBenchmark {
+
+	private ObjectMapper objectMapper;
+
+	private ExceptionResponseWriter writer;
+
+	@Setup
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		writer = new ExceptionResponseWriter();
+	}
+
+	@Benchmark
+	public byte[] statusOnlyObjectMapper() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(ExceptionResponse.of(HttpStatus.BAD_REQUEST));
+	}
+
+	@Benchmark
+	public byte[] statusOnlyWriter() {
+		return writer.write(ExceptionResponse.of(HttpStatus.BAD_REQUEST));
+	}
+
+	@Benchmark
+	public byte[] withErrorsObjectMapper() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(withErrors());
+	}
+
+	@Benchmark
+	public byte[] withErrorsWriter() {
+		return writer.write(withErrors());
+	}
+
+	private static ExceptionResponse withErrors() {
+		final ExceptionResponse response = ExceptionResponse.of(HttpStatus.BAD_REQUEST, "Invalid user");
+		response.addFieldError("username", "User username is mandatory");
+		response.addFieldError("email", "User email is invalid");
+		return response;
+	}
+
+}
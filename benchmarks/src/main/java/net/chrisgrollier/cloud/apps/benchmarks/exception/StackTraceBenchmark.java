@@ -0,0 +1,86 @@
+package net.chrisgrollier.cloud.apps.benchmarks.exception;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import net.chrisgrollier.cloud.apps.benchmarks.i18n.MessageManagerBenchmark;
+import net.chrisgrollier.cloud.apps.common.exception.StackTracePolicy;
+import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponse;
+import net.chrisgrollier.cloud.apps.common.exception.handler.ServiceExceptionHandler;
+import net.chrisgrollier.cloud.apps.common.exception.service.EntityNotFoundUnrecoverableException;
+
+/**
+ * Measures the throughput of a 404 heavy workload for each
+ * {@link StackTracePolicy} mode: an {@link EntityNotFoundUnrecoverableException}
+ * is thrown from {@code depth} nested calls, standing for the controller,
+ * proxies and service frames of a request, then handled into an
+ * {@link ExceptionResponse} by the {@link ServiceExceptionHandler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class StackTraceBenchmark {
+
+	@Param({ "ALWAYS", "SAMPLED", "NEVER" })
+	private StackTracePolicy.Mode mode;
+
+	@Param({ "20", "100" })
+	private int depth;
+
+	private ServiceExceptionHandler handler;
+
+	@Setup
+	public void setUp() {
+		StackTracePolicy.configure(mode, StackTracePolicy.DEFAULT_SAMPLE_RATE);
+		LocaleContextHolder.setDefaultLocale(Locale.ENGLISH);
+		handler = new ServiceExceptionHandler(HttpStatus.NOT_FOUND, MessageManagerBenchmark.messageManager());
+	}
+
+	@TearDown
+	public void tearDown() {
+		StackTracePolicy.configure(StackTracePolicy.Mode.ALWAYS, StackTracePolicy.DEFAULT_SAMPLE_RATE);
+	}
+
+	@Benchmark
+	public ResponseEntity<ExceptionResponse> notFound() {
+		try {
+			return findUser(depth, 42);
+		} catch (EntityNotFoundUnrecoverableException e) {
+			return handler.handle(e);
+		}
+	}
+
+	@Benchmark
+	public EntityNotFoundUnrecoverableException create() {
+		return new EntityNotFoundUnrecoverableException("Could not find user with id = {0}", "user.not.found", 42);
+	}
+
+	private static ResponseEntity<ExceptionResponse> findUser(int depth, int id) {
+		if (depth > 0) {
+			return findUser(depth - 1, id);
+		}
+		throw new EntityNotFoundUnrecoverableException("Could not find user with id = {0}", "user.not.found", id);
+	}
+
+}
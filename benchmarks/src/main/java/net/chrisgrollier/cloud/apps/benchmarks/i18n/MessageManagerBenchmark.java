@@ -0,0 +1,94 @@
+package net.chrisgrollier.cloud.apps.benchmarks.i18n;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
+import net.chrisgrollier.cloud.apps.common.internal.i18n.CachingMessageManager;
+import net.chrisgrollier.cloud.apps.common.internal.i18n.DefaultMessageManager;
+
+/**
+ * Measures the resolution of messages of the {@code messages_*.properties}
+ * bundles of the service, with and without arguments, in each of their
+ * locales, by the default and the caching message managers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MessageManagerBenchmark {
+
+	private static final Locale[] ALL_LOCALES = { Locale.ENGLISH, Locale.FRENCH, Locale.forLanguageTag("es") };
+
+	@Param({ "en", "fr", "es" })
+	private String locale;
+
+	@Param({ "default", "caching" })
+	private String manager;
+
+	private Locale resolvedLocale;
+
+	private MessageManager messageManager;
+
+	/**
+	 * Return a message manager configured as the service one, on the messages
+	 * bundles of the service.
+	 * 
+	 * @return a new message manager
+	 */
+	public static MessageManager messageManager() {
+		return messageManager(true);
+	}
+
+	/**
+	 * Return a message manager on the messages bundles of the service.
+	 * 
+	 * @param caching whether messages formats are cached
+	 * @return a new message manager
+	 */
+	public static MessageManager messageManager(boolean caching) {
+		final ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+		messageSource.setBasename("messages");
+		messageSource.setDefaultEncoding(StandardCharsets.UTF_8.name());
+		return caching ? new CachingMessageManager(messageSource) : new DefaultMessageManager(messageSource);
+	}
+
+	@Setup
+	public void setUp() {
+		resolvedLocale = Locale.forLanguageTag(locale);
+		messageManager = messageManager("caching".equals(manager));
+	}
+
+	@Benchmark
+	public String messageWithArgs() {
+		return messageManager.getMessage("user.not.found", resolvedLocale, 42);
+	}
+
+	@Benchmark
+	public String messageWithoutArgs() {
+		return messageManager.getMessage("user.validation.firstname.mandatory", resolvedLocale);
+	}
+
+	@Benchmark
+	public Map<Locale, String> allMessages() {
+		return messageManager.getAllMessages("user.not.found", ALL_LOCALES, 42);
+	}
+
+}
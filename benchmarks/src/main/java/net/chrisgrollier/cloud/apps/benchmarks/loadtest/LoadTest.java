@@ -0,0 +1,313 @@
+package net.chrisgrollier.cloud.apps.benchmarks.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+
+/**
+ * Open loop load test of the {@code /api/v1/users} API of a running service,
+ * typically started locally with the {@code loadtest} profile. Synthetic users
+ * are first seeded through the batch endpoint, then requests of a weighted mix
+ * of operations are issued at a target rate whatever the response times, and
+ * the throughput and latency percentiles of each operation are reported.
+ * Latencies are measured from the time each request was due, so that requests
+ * delayed by a saturated service or client are accounted for.
+ * <p>
+ * The test is configured with system properties:
+ * <ul>
+ * <li>{@code loadtest.url}: base url of the service, http://localhost:8082</li>
+ * <li>{@code loadtest.username}, {@code loadtest.password}: basic
+ * authentication credentials, loadtest/loadtest</li>
+ * <li>{@code loadtest.users}: number of seeded users, 10000</li>
+ * <li>{@code loadtest.rate}: requests per second, 500</li>
+ * <li>{@code loadtest.duration}: duration in seconds, 60</li>
+ * <li>{@code loadtest.connections}: maximum concurrent requests, 64</li>
+ * <li>{@code loadtest.mix}: operation weights,
+ * get=40,username=20,exists=15,authenticate=10,add=5,update=5,delete=5</li>
+ * </ul>
+ */
+public class LoadTest {
+
+	private static final String API = "/api/v1/users";
+
+	private static final String DEFAULT_MIX = "get=40,username=20,exists=15,authenticate=10,add=5,update=5,delete=5";
+
+	private static final int SEED_BATCH_SIZE = 1000;
+
+	private final String url;
+
+	private final String authorization;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/** prefix of the usernames of this run, to run the test several times on the same database */
+	private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+	/** the seeded users */
+	private final List<User> users = new ArrayList<>();
+
+	/** the users added by the test, deleted by the delete operation */
+	private final ConcurrentLinkedQueue<Integer> addedIds = new ConcurrentLinkedQueue<>();
+
+	/** sequence of the users added by the test */
+	private final AtomicLong addedCount = new AtomicLong();
+
+	/** the operations of the mix, by name */
+	private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+	public static void main(String[] args) throws Exception {
+		final LoadTest loadTest = new LoadTest(System.getProperty("loadtest.url", "http://localhost:8082"),
+				System.getProperty("loadtest.username", "loadtest"), System.getProperty("loadtest.password", "loadtest"),
+				System.getProperty("loadtest.mix", DEFAULT_MIX));
+		loadTest.seed(Integer.getInteger("loadtest.users", 10000));
+		loadTest.run(Integer.getInteger("loadtest.rate", 500), Integer.getInteger("loadtest.duration", 60),
+				Integer.getInteger("loadtest.connections", 64));
+		loadTest.report(System.out, Integer.getInteger("loadtest.duration", 60));
+	}
+
+	LoadTest(String url, String username, String password, String mix) {
+		this.url = url + API;
+		this.authorization = "Basic "
+				+ Base64.getEncoder().encodeToString((username + ':' + password).getBytes(StandardCharsets.UTF_8));
+		for (String weight : mix.split(",")) {
+			final String[] nameAndWeight = weight.trim().split("=");
+			operations.put(nameAndWeight[0], new Operation(nameAndWeight[0], Integer.parseInt(nameAndWeight[1])));
+		}
+	}
+
+	/**
+	 * Add synthetic users through the batch endpoint.
+	 */
+	void seed(int count) throws IOException {
+		final long start = System.nanoTime();
+		for (int from = 0; from < count; from += SEED_BATCH_SIZE) {
+			final List<User> batch = new ArrayList<>(SEED_BATCH_SIZE);
+			for (int i = from; i < Math.min(count, from + SEED_BATCH_SIZE); i++) {
+				batch.add(user("seed", i));
+			}
+			final Response response = request("POST", "/batch", objectMapper.writeValueAsBytes(batch));
+			if (response.status != HttpURLConnection.HTTP_OK) {
+				throw new IOException("Seeding failed with status " + response.status + ": "
+						+ new String(response.body, StandardCharsets.UTF_8));
+			}
+			for (JsonNode item : objectMapper.readTree(response.body)) {
+				final User user = batch.get(item.get("index").asInt());
+				if (item.hasNonNull("user")) {
+					user.setId(item.get("user").get("id").asInt());
+					users.add(user);
+				}
+			}
+		}
+		System.out.printf("Seeded %d users in %d ms%n", users.size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		if (users.isEmpty()) {
+			throw new IllegalStateException("No user could be seeded");
+		}
+	}
+
+	/**
+	 * Issue requests at the given rate during the given duration, each request
+	 * being due at a fixed interval after the previous one.
+	 */
+	void run(int rate, int duration, int connections) throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(connections);
+		final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		final long requests = (long) rate * duration;
+		final int totalWeight = operations.values().stream().mapToInt(operation -> operation.weight).sum();
+		final long start = System.nanoTime();
+		for (long i = 0; i < requests; i++) {
+			final long due = start + i * interval;
+			final long delay = due - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}
+			final Operation operation = pick(ThreadLocalRandom.current().nextInt(totalWeight));
+			executor.execute(() -> operation.execute(due));
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Print the throughput and latency percentiles, in milliseconds, of each
+	 * operation.
+	 */
+	void report(PrintStream out, int duration) {
+		out.printf("%-14s %8s %8s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "req/s", "p50",
+				"p90", "p99", "p99.9", "max");
+		for (Operation operation : operations.values()) {
+			final Histogram histogram = operation.latencies;
+			out.printf("%-14s %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name,
+					histogram.getTotalCount(), operation.errors.get(), (double) histogram.getTotalCount() / duration,
+					millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+					millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+					millis(histogram.getMaxValue()));
+		}
+	}
+
+	private Operation pick(int weight) {
+		int remaining = weight;
+		for (Operation operation : operations.values()) {
+			remaining -= operation.weight;
+			if (remaining < 0) {
+				return operation;
+			}
+		}
+		throw new IllegalStateException("Weight out of range: " + weight);
+	}
+
+	/**
+	 * Perform one request of the given operation, returning its status or -1 if
+	 * the operation could not be performed.
+	 */
+	private int perform(String operation) throws IOException {
+		final User user = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+		switch (operation) {
+		case "get":
+			return request("GET", "/" + user.getId(), null).status;
+		case "username":
+			return request("GET", "/username/" + encode(user.getUsername()), null).status;
+		case "exists":
+			// half of the checks are for unknown usernames
+			final String username = ThreadLocalRandom.current().nextBoolean() ? user.getUsername()
+					: "unknown-" + user.getUsername();
+			return request("GET", "/exists/username/" + encode(username), null).status;
+		case "authenticate":
+			return request("POST", "/authenticate", objectMapper.writeValueAsBytes(user)).status;
+		case "add":
+			final Response added = request("POST", "", objectMapper.writeValueAsBytes(user("added", addedCount.incrementAndGet())));
+			if (added.status == HttpURLConnection.HTTP_OK) {
+				addedIds.add(objectMapper.readTree(added.body).get("id").asInt());
+			}
+			return added.status;
+		case "update":
+			return request("PUT", "/" + user.getId(), objectMapper.writeValueAsBytes(user)).status;
+		case "delete":
+			final Integer id = addedIds.poll();
+			return id != null ? request("DELETE", "/" + id, null).status : -1;
+		default:
+			throw new IllegalArgumentException("Unknown operation " + operation);
+		}
+	}
+
+	private Response request(String method, String path, byte[] body) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+		connection.setRequestMethod(method);
+		connection.setRequestProperty("Authorization", authorization);
+		connection.setRequestProperty("Accept", "application/json");
+		if (body != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body);
+			}
+		}
+		final int status = connection.getResponseCode();
+		// read the whole body so that the connection is kept alive
+		try (InputStream in = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream()
+				: connection.getErrorStream()) {
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			if (in != null) {
+				final byte[] chunk = new byte[4096];
+				for (int read; (read = in.read(chunk)) != -1;) {
+					buffer.write(chunk, 0, read);
+				}
+			}
+			return new Response(status, buffer.toByteArray());
+		}
+	}
+
+	private User user(String kind, long i) {
+		final User user = new User();
+		user.setFirstName("First" + i);
+		user.setLastName("Last" + i);
+		user.setEmail(kind + i + "@example.com");
+		user.setAddress(i + " load test street");
+		user.setRole(i % 10 == 0 ? Role.ADMIN : Role.USER);
+		user.setUsername(runId + '-' + kind + '-' + i);
+		user.setPassword("password" + i);
+		return user;
+	}
+
+	private static String encode(String value) throws IOException {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000d;
+	}
+
+	private static class Response {
+
+		final int status;
+
+		final byte[] body;
+
+		Response(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * An operation of the mix and its measures.
+	 */
+	private class Operation {
+
+		final String name;
+
+		final int weight;
+
+		final Histogram latencies = new ConcurrentHistogram(3);
+
+		final AtomicLong errors = new AtomicLong();
+
+		Operation(String name, int weight) {
+			this.name = name;
+			this.weight = weight;
+		}
+
+		void execute(long due) {
+			try {
+				final int status = perform(name);
+				if (status < 0) {
+					return;
+				}
+				if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+					errors.incrementAndGet();
+				}
+			} catch (IOException e) {
+				errors.incrementAndGet();
+			}
+			latencies.recordValue(System.nanoTime() - due);
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package net.chrisgrollier.cloud.apps.benchmarks.mapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapper;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapperImpl;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+
+/**
+ * Compares the mapping of users entities to models by the
+ * generated {@link UserModelEntityMapper}, instantiating models through factories
+ * resolved once, with the legacy path instantiating them with
+ * {@link Class#newInstance()}. Scores are given per mapping call, so that the
+ * per object cost is the score divided by {@code size}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BidiMapperBenchmark {
+
+	/** number of entities mapped by the froms benchmarks */
+	@Param({ "1", "100", "10000" })
+	private int size;
+
+	private final UserModelEntityMapper mapper = new UserModelEntityMapperImpl();
+
+	private final UserModelEntityMapper legacyMapper = new LegacyUserModelEntityMapper();
+
+	private List<UserEntity> entities;
+
+	@Setup
+	public void setUp() {
+		entities = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			final UserEntity entity = new UserEntity();
+			entity.setFirstName("first" + i);
+			entity.setLastName("last" + i);
+			entity.setEmail("user" + i + "@example.com");
+			entity.setAddress(i + " main street");
+			entity.setRole(Role.USER);
+			entity.setUsername("user" + i);
+			entity.setPassword("password" + i);
+			entities.add(entity);
+		}
+	}
+
+	@Benchmark
+	public Collection<User> froms() {
+		return mapper.froms(entities);
+	}
+
+	@Benchmark
+	public Collection<User> fromsLegacy() {
+		return legacyMapper.froms(entities);
+	}
+
+	@Benchmark
+	public User from() {
+		return mapper.from(entities.get(0));
+	}
+
+	@Benchmark
+	public User fromLegacy() {
+		return legacyMapper.from(entities.get(0));
+	}
+
+	/**
+	 * The mapper as it was before factories resolution, instantiating through
+	 * {@link Class#newInstance()} on each call.
+	 */
+	static class LegacyUserModelEntityMapper extends UserModelEntityMapperImpl {
+
+		@Override
+		protected User newT() {
+			return newInstance(User.class);
+		}
+
+		@Override
+		protected UserEntity newS() {
+			return newInstance(UserEntity.class);
+		}
+
+		@SuppressWarnings("deprecation")
+		private static <C> C newInstance(Class<C> clazz) {
+			try {
+				return clazz.newInstance();
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new RuntimeException("Unable to instanciate class " + clazz.getName(), e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package net.chrisgrollier.cloud.apps.benchmarks.mapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.chrisgrollier.cloud.apps.common.util.mapping.BulkMapping;
+import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapperImpl;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+
+/**
+ * Compares the bulk mapping methods of the users mapper: sequential
+ * {@code froms}, presized and parallel {@code bulkFroms}, and the lazy
+ * {@code fromsView} iterated once as a serializer would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BulkMappingBenchmark {
+
+	/** number of mapped entities */
+	@Param({ "1000", "10000", "100000" })
+	private int size;
+
+	/** the parallel mapping threshold */
+	@Param({ "10000" })
+	private int threshold;
+
+	private final UserModelEntityMapperImpl mapper = new UserModelEntityMapperImpl();
+
+	private BulkMapping bulkMapping;
+
+	private List<UserEntity> entities;
+
+	@Setup
+	public void setUp() {
+		bulkMapping = new BulkMapping(threshold, Runtime.getRuntime().availableProcessors());
+		mapper.setBulkMapping(bulkMapping);
+		entities = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			final UserEntity entity = new UserEntity();
+			entity.setFirstName("first" + i);
+			entity.setLastName("last" + i);
+			entity.setEmail("user" + i + "@example.com");
+			entity.setAddress(i + " main street");
+			entity.setRole(Role.USER);
+			entity.setUsername("user" + i);
+			entity.setPassword("password" + i);
+			entities.add(entity);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		bulkMapping.close();
+	}
+
+	@Benchmark
+	public Collection<User> froms() {
+		return mapper.froms(entities);
+	}
+
+	@Benchmark
+	public Collection<User> bulkFroms() {
+		return mapper.bulkFroms(entities);
+	}
+
+	@Benchmark
+	public void fromsView(Blackhole blackhole) {
+		for (User user : mapper.fromsView(entities)) {
+			blackhole.consume(user);
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package net.chrisgrollier.cloud.apps.benchmarks.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import net.chrisgrollier.cloud.apps.sample.user.cache.UserCache;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UsernameFilter;
+import net.chrisgrollier.cloud.apps.sample.user.config.CommonAutoConfiguration;
+import net.chrisgrollier.cloud.apps.sample.user.config.MappingConfiguration;
+import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
+import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapperImpl;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserLookup;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserService;
+
+/**
+ * Measures the reads of the {@link UserService} against an embedded H2
+ * database seeded with {@code users} users: cached lookups by id, multi-get
+ * and keyset pages, which always hit the database, and username existence
+ * checks, half of them for unknown usernames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+	/** number of seeded users */
+	@Param({ "10000" })
+	private int users;
+
+	/** number of users of multi-gets and pages */
+	@Param({ "100" })
+	private int batch;
+
+	private ConfigurableApplicationContext context;
+
+	private UserService userService;
+
+	private List<Integer> ids;
+
+	@Setup
+	public void setUp() {
+		// @formatter:off
+		context = new SpringApplicationBuilder(ServiceContext.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.cloud.config.enabled=false",
+						"--spring.cloud.config.discovery.enabled=false",
+						"--eureka.client.enabled=false",
+						"--spring.datasource.url=jdbc:h2:mem:users;DB_CLOSE_DELAY=-1",
+						"--spring.jpa.hibernate.ddl-auto=create-drop",
+						"--user.username-filter.single-node=true",
+						"--logging.level.root=WARN");
+		// @formatter:on
+		userService = context.getBean(UserService.class);
+		final List<User> seed = new ArrayList<>(users);
+		for (int i = 0; i < users; i++) {
+			final User user = new User();
+			user.setFirstName("first" + i);
+			user.setLastName("last" + i);
+			user.setEmail("user" + i + "@example.com");
+			user.setRole(Role.USER);
+			user.setUsername("user" + i);
+			user.setPassword("password" + i);
+			seed.add(user);
+		}
+		ids = new ArrayList<>(users);
+		for (int from = 0; from < users; from += 1000) {
+			userService.addUsers(seed.subList(from, Math.min(users, from + 1000)))
+					.forEach(item -> ids.add(item.getUser().getId()));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public User findUserById() {
+		return userService.findUser(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+	}
+
+	@Benchmark
+	public UserLookup findUsersByIds() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final Collection<Integer> batchIds = new ArrayList<>(batch);
+		for (int i = 0; i < batch; i++) {
+			batchIds.add(ids.get(random.nextInt(ids.size())));
+		}
+		return userService.findUsers(batchIds);
+	}
+
+	@Benchmark
+	public Slice<User> findUsersPage() {
+		return userService.findUsers(ids.get(ThreadLocalRandom.current().nextInt(ids.size())), batch);
+	}
+
+	@Benchmark
+	public boolean existsUserByUsername() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		return userService.existsUserByUsername((random.nextBoolean() ? "user" : "nobody") + random.nextInt(users));
+	}
+
+	/**
+	 * The service and its dependencies on an embedded database, without the
+	 * web layer nor the cloud infrastructure.
+	 */
+	@Configuration
+	@EnableAutoConfiguration
+	@EntityScan(basePackageClasses = UserEntity.class)
+	@EnableJpaRepositories(basePackageClasses = UserDAO.class)
+	@Import({ UserService.class, UserModelEntityMapperImpl.class, UserCache.class, UsernameFilter.class,
+			MappingConfiguration.class, CommonAutoConfiguration.class })
+	static class ServiceContext {
+	}
+
+}
@@ -0,0 +1,126 @@
+package net.chrisgrollier.cloud.apps.common.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source routing connections of read-only transactions to replicas, in a
+ * round robin manner, and all other connections to the primary. Since the
+ * read-only flag of a transaction is only known once it began, this data source
+ * must be wrapped in a {@link LazyConnectionDataSourceProxy} so that the
+ * connection is only obtained when the first statement executes.
+ * <p>
+ * When a {@link ReadYourWritesTracker} is given, read-only transactions of
+ * sessions that recently committed a write are routed to the primary.
+ * <p>
+ * Reads that must see every committed write, whatever the session, may be
+ * forced to the primary by {@link #onPrimary(Supplier)}.
+ * 
+ * @author Atos
+ *
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+	private static final String PRIMARY = "primary";
+
+	private static final String REPLICA = "replica-";
+
+	private final DataSource primary;
+
+	private final List<DataSource> replicas;
+
+	private final ReadYourWritesTracker tracker;
+
+	/** set while the current thread reads from the primary only */
+	private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Create a new routing data source.
+	 * 
+	 * @param primary
+	 *            the primary data source
+	 * @param replicas
+	 *            the replicas data sources, possibly empty
+	 * @param tracker
+	 *            the read your writes tracker, or <code>null</code> to always
+	 *            route read-only transactions to replicas
+	 */
+	public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker tracker) {
+		this.primary = primary;
+		this.replicas = replicas;
+		this.tracker = tracker;
+		final Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			targets.put(REPLICA + i, replicas.get(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+
+	/**
+	 * Run the given action with all its connections, including those of read-only
+	 * transactions, obtained from the primary.
+	 * 
+	 * @param action
+	 *            the action
+	 * @return the result of the action
+	 */
+	public static <T> T onPrimary(Supplier<T> action) {
+		final Boolean previous = FORCE_PRIMARY.get();
+		FORCE_PRIMARY.set(Boolean.TRUE);
+		try {
+			return action.get();
+		} finally {
+			if (previous == null) {
+				FORCE_PRIMARY.remove();
+			}
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			return PRIMARY;
+		}
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (tracker != null) {
+				tracker.writing();
+			}
+			return PRIMARY;
+		}
+		if (replicas.isEmpty() || FORCE_PRIMARY.get() != null || tracker != null && tracker.isPinned()) {
+			return PRIMARY;
+		}
+		return REPLICA + Math.floorMod(next.getAndIncrement(), replicas.size());
+	}
+
+	/**
+	 * Close the primary and replicas data sources that can be closed.
+	 */
+	@Override
+	public void close() throws Exception {
+		close(primary);
+		for (DataSource replica : replicas) {
+			close(replica);
+		}
+	}
+
+	private static void close(DataSource dataSource) throws Exception {
+		if (dataSource instanceof AutoCloseable) {
+			((AutoCloseable) dataSource).close();
+		}
+	}
+
+}
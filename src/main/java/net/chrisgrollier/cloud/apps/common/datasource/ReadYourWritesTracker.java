@@ -0,0 +1,79 @@
+package net.chrisgrollier.cloud.apps.common.datasource;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Tracks the client sessions that recently committed a write, so that their
+ * subsequent reads are served by the primary database rather than by a replica
+ * that may not have caught up yet. A session stays pinned to the primary for a
+ * fixed window after its last committed write.
+ * 
+ * @author Atos
+ *
+ */
+public class ReadYourWritesTracker {
+
+	/** supplies the key of the current client session, or null if none */
+	private final Supplier<?> sessionKey;
+
+	/** sessions pinned to the primary, expiring at the end of the window */
+	private final Cache<Object, Boolean> pinnedSessions;
+
+	/**
+	 * Create a new tracker.
+	 * 
+	 * @param sessionKey
+	 *            supplies the key of the current client session, or
+	 *            <code>null</code> if the current thread does not serve a client
+	 *            session
+	 * @param window
+	 *            how long a session stays pinned to the primary after a write
+	 * @param maximumSessions
+	 *            the maximum number of sessions tracked at once
+	 */
+	public ReadYourWritesTracker(Supplier<?> sessionKey, Duration window, long maximumSessions) {
+		this.sessionKey = sessionKey;
+		this.pinnedSessions = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maximumSessions).build();
+	}
+
+	/**
+	 * Record that the current session writes. The session is pinned once the
+	 * current transaction commits, or immediately if there is no transaction
+	 * synchronization.
+	 */
+	public void writing() {
+		final Object key = sessionKey.get();
+		if (key == null) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					pinnedSessions.put(key, Boolean.TRUE);
+				}
+			});
+		} else {
+			pinnedSessions.put(key, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Tell whether reads of the current session must be served by the primary.
+	 * 
+	 * @return <code>true</code> if the current session committed a write during
+	 *         the window
+	 */
+	public boolean isPinned() {
+		final Object key = sessionKey.get();
+		return key != null && pinnedSessions.getIfPresent(key) != null;
+	}
+
+}
@@ -96,6 +96,15 @@ public class FunctionalException extends Exception implements FrameworkFunctiona
 		this.messageArgs = messageArgs;
 	}
 
+	/**
+	 * Capture the stack trace of this exception, unless {@link StackTracePolicy}
+	 * tells otherwise.
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return StackTracePolicy.isCaptured() ? super.fillInStackTrace() : this;
+	}
+
 	public String getMessageKey() {
 		return messageKey;
 	}
@@ -0,0 +1,141 @@
+package net.chrisgrollier.cloud.apps.common.exception;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Policy deciding whether {@link FunctionalException} and
+ * {@link UnrecoverableFunctionalException} instances capture their stack trace.
+ * Those exceptions report expected outcomes, such as an entity not found, whose
+ * stack trace is seldom useful while capturing it is the major part of their
+ * cost. The policy defaults to the {@code functional.exception.stack-trace}
+ * ({@code always}, {@code never} or {@code sampled}) and
+ * {@code functional.exception.stack-trace.sample-rate} (between 0 and 1) system
+ * properties, and may be changed at runtime by
+ * {@link #configure(Mode, double)}. Invalid property values are ignored with a
+ * warning, so that stack traces are captured, and sample rates are clamped
+ * between 0 and 1.
+ * 
+ * @author Atos
+ *
+ */
+public final class StackTracePolicy {
+
+	/** default ratio of functional exceptions capturing their stack trace when sampled */
+	public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+	/**
+	 * Stack trace capture modes.
+	 */
+	public enum Mode {
+		/** every exception captures its stack trace, as any other exception */
+		ALWAYS,
+		/** no exception captures its stack trace */
+		NEVER,
+		/** a random sample of exceptions captures its stack trace */
+		SAMPLED
+	}
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StackTracePolicy.class);
+
+	private static volatile Mode mode = parseMode(System.getProperty("functional.exception.stack-trace"));
+
+	private static volatile double sampleRate = parseSampleRate(
+			System.getProperty("functional.exception.stack-trace.sample-rate"));
+
+	private StackTracePolicy() {
+	}
+
+	/**
+	 * Change the policy of functional exceptions created from now on.
+	 * 
+	 * @param mode
+	 *            the capture mode
+	 * @param sampleRate
+	 *            the ratio of exceptions capturing their stack trace in
+	 *            {@link Mode#SAMPLED} mode, between 0 and 1
+	 */
+	public static void configure(Mode mode, double sampleRate) {
+		if (!(sampleRate >= 0 && sampleRate <= 1)) {
+			throw new IllegalArgumentException("sample rate must be between 0 and 1: " + sampleRate);
+		}
+		StackTracePolicy.sampleRate = sampleRate;
+		StackTracePolicy.mode = mode;
+	}
+
+	/**
+	 * Parse a capture mode, ignoring case and surrounding blanks.
+	 * 
+	 * @param value
+	 *            the mode name, may be <code>null</code>
+	 * @return the parsed mode, or {@link Mode#ALWAYS} if the value is
+	 *         <code>null</code> or invalid
+	 */
+	public static Mode parseMode(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return Mode.ALWAYS;
+		}
+		try {
+			return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Invalid functional exceptions stack trace mode {}, using {}", value, Mode.ALWAYS);
+			return Mode.ALWAYS;
+		}
+	}
+
+	/**
+	 * Parse a sample rate, clamped between 0 and 1.
+	 * 
+	 * @param value
+	 *            the sample rate, may be <code>null</code>
+	 * @return the parsed sample rate, or {@link #DEFAULT_SAMPLE_RATE} if the
+	 *         value is <code>null</code> or invalid
+	 */
+	public static double parseSampleRate(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return DEFAULT_SAMPLE_RATE;
+		}
+		final double rate;
+		try {
+			rate = Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Invalid functional exceptions stack trace sample rate {}, using {}", value,
+					DEFAULT_SAMPLE_RATE);
+			return DEFAULT_SAMPLE_RATE;
+		}
+		if (Double.isNaN(rate)) {
+			LOGGER.warn("Invalid functional exceptions stack trace sample rate {}, using {}", value,
+					DEFAULT_SAMPLE_RATE);
+			return DEFAULT_SAMPLE_RATE;
+		}
+		return Math.min(1, Math.max(0, rate));
+	}
+
+	public static Mode getMode() {
+		return mode;
+	}
+
+	public static double getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Return whether an exception being created should capture its stack trace.
+	 * 
+	 * @return true if the stack trace should be captured
+	 */
+	static boolean isCaptured() {
+		switch (mode) {
+		case NEVER:
+			return false;
+		case SAMPLED:
+			return ThreadLocalRandom.current().nextDouble() < sampleRate;
+		default:
+			return true;
+		}
+	}
+
+}
@@ -31,8 +31,8 @@ public class ExceptionResponse {
 	/** The error message description. */
 	private String message;
 
-	/** The List of field errors. */
-	private final Collection<FieldError> errors = Lists.newArrayList();
+	/** The List of field errors, created by the first added error. */
+	private Collection<FieldError> errors;
 
 	private ExceptionResponse(HttpStatus statusCode, String message) {
 		this.statusCode = checkNotNull(statusCode, "Status code is required");
@@ -70,7 +70,7 @@ public class ExceptionResponse {
 	 *            the error message description.
 	 */
 	public void addFieldError(final String message) {
-		errors.add(FieldError.of(message));
+		fieldErrors().add(FieldError.of(message));
 	}
 
 	/**
@@ -82,7 +82,7 @@ public class ExceptionResponse {
 	 *            the error message description
 	 */
 	public void addFieldError(String field, final String message) {
-		errors.add(FieldError.of(field, message));
+		fieldErrors().add(FieldError.of(field, message));
 	}
 
 	/**
@@ -92,7 +92,7 @@ public class ExceptionResponse {
 	 *            the field error to be added.
 	 */
 	public void addFieldError(final FieldError fieldError) {
-		errors.add(fieldError);
+		fieldErrors().add(fieldError);
 	}
 
 	public HttpStatus getStatusCode() {
@@ -108,7 +108,14 @@ public class ExceptionResponse {
 	}
 
 	public Collection<FieldError> getErrors() {
-		return Collections.unmodifiableCollection(errors);
+		return errors == null ? Collections.emptyList() : Collections.unmodifiableCollection(errors);
+	}
+
+	private Collection<FieldError> fieldErrors() {
+		if (errors == null) {
+			errors = Lists.newArrayList();
+		}
+		return errors;
 	}
 
 	@Override
@@ -117,8 +124,7 @@ public class ExceptionResponse {
         return MoreObjects.toStringHelper(this)
                           .add("statusCode", statusCode)
                           .add("message", message)
-                          .add("errors", errors)
-                          .add("errors", errors)
+                          .add("errors", getErrors())
                           .toString();
         // @formatter:on
 
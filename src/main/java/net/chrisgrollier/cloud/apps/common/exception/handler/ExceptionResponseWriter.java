@@ -0,0 +1,102 @@
+package net.chrisgrollier.cloud.apps.common.exception.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes {@link ExceptionResponse} instances as the JSON documents Jackson
+ * would produce, without going through data binding. Responses holding only a
+ * status and its reason phrase, such as {@link ExceptionResponse#of(HttpStatus)}
+ * ones, are written once for every {@link HttpStatus} and their bytes are then
+ * shared, so they must not be modified. Other responses are written by a
+ * streaming generator.
+ *
+ * @author Atos
+ *
+ */
+public class ExceptionResponseWriter {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/** pre-serialized bodies of responses without specific message nor errors */
+	private final Map<HttpStatus, byte[]> cannedBodies = new EnumMap<>(HttpStatus.class);
+
+	public ExceptionResponseWriter() {
+		super();
+		for (HttpStatus status : HttpStatus.values()) {
+			cannedBodies.put(status, serialize(ExceptionResponse.of(status)));
+		}
+	}
+
+	/**
+	 * Return the given {@link ResponseEntity} with its body written as JSON.
+	 *
+	 * @param entity
+	 *            a {@link ResponseEntity} holding an {@link ExceptionResponse}
+	 * @return a {@link ResponseEntity} holding the JSON document of the
+	 *         {@link ExceptionResponse}, with the same status and headers
+	 */
+	public ResponseEntity<byte[]> write(ResponseEntity<ExceptionResponse> entity) {
+		final HttpHeaders headers = new HttpHeaders();
+		headers.putAll(entity.getHeaders());
+		headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+		return new ResponseEntity<>(write(entity.getBody()), headers, entity.getStatusCode());
+	}
+
+	/**
+	 * Return the JSON document of the given {@link ExceptionResponse}.
+	 *
+	 * @param response
+	 *            an {@link ExceptionResponse}
+	 * @return the UTF-8 encoded JSON document of the response
+	 */
+	public byte[] write(ExceptionResponse response) {
+		if (response.getErrors().isEmpty()
+				&& Objects.equals(response.getMessage(), response.getStatusCode().getReasonPhrase())) {
+			return cannedBodies.get(response.getStatusCode());
+		}
+		return serialize(response);
+	}
+
+	private static byte[] serialize(ExceptionResponse response) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+			generator.writeStartObject();
+			generator.writeStringField("statusCode", response.getStatusCode().name());
+			if (response.getMessage() != null) {
+				generator.writeStringField("message", response.getMessage());
+			}
+			generator.writeArrayFieldStart("errors");
+			for (FieldError error : response.getErrors()) {
+				generator.writeStartObject();
+				if (error.getField() != null) {
+					generator.writeStringField("field", error.getField());
+				}
+				if (error.getMessage() != null) {
+					generator.writeStringField("message", error.getMessage());
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		} catch (IOException e) {
+			// not expected from an in memory stream
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -2,7 +2,6 @@ package net.chrisgrollier.cloud.apps.common.exception.handler;
 
 import java.text.MessageFormat;
 
-import org.springframework.context.NoSuchMessageException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -54,10 +53,10 @@ public class ServiceExceptionHandler implements RestExceptionHandler<Exception>
 	 *            base exception
 	 * @return exception message if the given exception is NOT a
 	 *         {@link FrameworkFunctionalException} otherwise if we have
-	 *         {@link MessageManager}, we try to retrieve the message from it. If it
-	 *         fails and we have at least one item in the messageArgs array of the
-	 *         exception, we use a {@link MessageFormat} to produce the effective
-	 *         message
+	 *         {@link MessageManager} holding the message key, we retrieve the
+	 *         message from it. Otherwise if we have at least one item in the
+	 *         messageArgs array of the exception, we use a {@link MessageFormat}
+	 *         to produce the effective message
 	 */
 	protected ExceptionResponse i18nResponse(Throwable throwable) {
 		// init message with exception.getMessage()
@@ -67,15 +66,12 @@ public class ServiceExceptionHandler implements RestExceptionHandler<Exception>
 			FrameworkFunctionalException exception = (FrameworkFunctionalException) throwable;
 			if (this.messageManager != null && exception.getMessageKey() != null) {
 				// and if we have a message manager and a message key
-				try {
-					// we try to obtain the message with messageManager
+				if (this.messageManager.hasMessage(exception.getMessageKey())) {
+					// we obtain the message with messageManager
 					message = this.messageManager.getMessage(exception.getMessageKey(), exception.getMessageArgs());
-				} catch (NoSuchMessageException e) {
-					// if failed
-					if (exception.getMessageArgs() != null && exception.getMessageArgs().length > 0) {
-						// we try to apply a format if we have at least one message arg
-						message = MessageFormat.format(exception.getMessage(), exception.getMessageArgs());
-					}
+				} else if (exception.getMessageArgs() != null && exception.getMessageArgs().length > 0) {
+					// otherwise we try to apply a format if we have at least one message arg
+					message = MessageFormat.format(exception.getMessage(), exception.getMessageArgs());
 				}
 			}
 		}
@@ -1,6 +1,10 @@
 package net.chrisgrollier.cloud.apps.common.exception.handler.support;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.validation.ConstraintViolationException;
 
@@ -26,10 +30,16 @@ import org.springframework.web.servlet.NoHandlerFoundException;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
 import net.chrisgrollier.cloud.apps.common.exception.handler.ConstraintViolationExceptionHandler;
 import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponse;
+import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponseWriter;
 import net.chrisgrollier.cloud.apps.common.exception.handler.JsonMappingExceptionHandler;
 import net.chrisgrollier.cloud.apps.common.exception.handler.ResponseStatusExceptionHandler;
+import net.chrisgrollier.cloud.apps.common.exception.handler.RestExceptionHandler;
 import net.chrisgrollier.cloud.apps.common.exception.handler.ServiceExceptionHandler;
 import net.chrisgrollier.cloud.apps.common.exception.handler.ServletExceptionHandler;
 import net.chrisgrollier.cloud.apps.common.exception.handler.TypeMismatchExceptionHandler;
@@ -47,11 +57,29 @@ import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
  * If localized error message are required, consider inherit
  * {@link DefaultWebAppExceptionHandler}.
  * 
+ * The {@link ExceptionResponse} built by handlers is written as JSON by an
+ * {@link ExceptionResponseWriter}, bypassing message converters: responses
+ * holding only a status and its reason phrase are pre-serialized.
+ * 
+ * The handling of each exception type is timed by an
+ * {@value #METRIC_NAME} timer tagged by the exception class name, up to
+ * {@value #MAX_EXCEPTION_TYPES} types, further ones sharing the
+ * {@value #OTHER_EXCEPTION_TYPES} tag.
+ * 
  * @author Atos
  *
  */
 public class BasicWebAppExceptionHandler {
 
+	/** name of the timers of exceptions handling */
+	public static final String METRIC_NAME = "exceptions.handled";
+
+	/** maximum number of exception types having their own timer */
+	public static final int MAX_EXCEPTION_TYPES = 100;
+
+	/** exception tag of the types beyond {@link #MAX_EXCEPTION_TYPES} */
+	public static final String OTHER_EXCEPTION_TYPES = "other";
+
 	private final JsonMappingExceptionHandler jsonMappingExpHandler;
 
 	private final ConstraintViolationExceptionHandler constraintViolationExpHandler;
@@ -66,6 +94,33 @@ public class BasicWebAppExceptionHandler {
 
 	private final ServiceExceptionHandler notFoundExceptionHandler;
 
+	private final ExceptionResponseWriter responseWriter;
+
+	private final RestExceptionHandler<Exception> badRequestExpHandler = this::handleBadRequest;
+
+	private final RestExceptionHandler<Exception> defaultExpHandler = this::handleDefault;
+
+	/**
+	 * Resolutions by exception type. Stored along their class, they do not prevent
+	 * it from being unloaded.
+	 */
+	private final ClassValue<Resolution> resolutions = new ClassValue<Resolution>() {
+		@Override
+		protected Resolution computeValue(Class<?> type) {
+			return resolve(type);
+		}
+	};
+
+	/**
+	 * Timers by exception type name, so that a type only takes a tag slot once
+	 * even when its resolution is computed more than once.
+	 */
+	private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+	private final AtomicInteger timedTypes = new AtomicInteger();
+
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
 	@Autowired
 	public BasicWebAppExceptionHandler(MessageManager messageManager) {
 		super();
@@ -76,6 +131,42 @@ public class BasicWebAppExceptionHandler {
 		validationExpHandler = new ValidationExceptionHandler();
 		typeMismatchExpHandler = new TypeMismatchExceptionHandler();
 		this.notFoundExceptionHandler = new ServiceExceptionHandler(HttpStatus.NOT_FOUND, messageManager);
+		this.responseWriter = new ExceptionResponseWriter();
+	}
+
+	/**
+	 * Set the registry of the exceptions handling timers, injected when the
+	 * application context defines one. {@link Metrics#globalRegistry} is used
+	 * otherwise.
+	 * 
+	 * @param meterRegistry
+	 *            the meter registry
+	 */
+	@Autowired(required = false)
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Handle the given exception with the given handler, timing it, and write the
+	 * resulting {@link ExceptionResponse} as JSON.
+	 * 
+	 * @param exception
+	 *            the exception to be handled
+	 * @param handler
+	 *            the handler of the exception
+	 * @return the result of {@link ExceptionResponseWriter#write(ResponseEntity)}
+	 *         on the result of the handler
+	 */
+	protected <E extends Exception> ResponseEntity<byte[]> handle(E exception,
+			RestExceptionHandler<? super E> handler) {
+		final Timer timer = resolutions.get(exception.getClass()).timer;
+		final long start = System.nanoTime();
+		try {
+			return responseWriter.write(handler.handle(exception));
+		} finally {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
 	}
 
 	/**
@@ -88,8 +179,8 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler(JsonMappingException.class)
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleJsonMappingExp(final JsonMappingException exception) {
-		return jsonMappingExpHandler.handle(exception);
+	public ResponseEntity<byte[]> handleJsonMappingExp(final JsonMappingException exception) {
+		return handle(exception, jsonMappingExpHandler);
 	}
 
 	/**
@@ -102,8 +193,8 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler(ConstraintViolationException.class)
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleConstraintViolationExp(final ConstraintViolationException ex) {
-		return constraintViolationExpHandler.handle(ex);
+	public ResponseEntity<byte[]> handleConstraintViolationExp(final ConstraintViolationException ex) {
+		return handle(ex, constraintViolationExpHandler);
 	}
 
 	/**
@@ -116,8 +207,8 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler(ResponseStatusException.class)
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleResponseStatusExp(final ResponseStatusException exception) {
-		return responseStatusExpHandler.handle(exception);
+	public ResponseEntity<byte[]> handleResponseStatusExp(final ResponseStatusException exception) {
+		return handle(exception, responseStatusExpHandler);
 
 	}
 
@@ -157,17 +248,15 @@ public class BasicWebAppExceptionHandler {
         })
     // @formatter:on
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleServletExp(final Exception exception) {
+	public ResponseEntity<byte[]> handleServletExp(final Exception exception) {
 		if (exception instanceof HttpMessageNotReadableException) {
 			final HttpMessageNotReadableException ex = (HttpMessageNotReadableException) exception;
 			if (ex.getRootCause() instanceof JsonMappingException) {
-				return jsonMappingExpHandler.handle((JsonMappingException) ex.getRootCause());
+				return handle((JsonMappingException) ex.getRootCause(), jsonMappingExpHandler);
 			}
-
-			final ExceptionResponse response = ExceptionResponse.of(HttpStatus.BAD_REQUEST);
-			return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+			return handle(exception, badRequestExpHandler);
 		}
-		return servletExpHandler.handle(exception);
+		return handle(exception, servletExpHandler);
 
 	}
 
@@ -181,8 +270,8 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler({ MethodArgumentNotValidException.class, BindException.class })
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleValidationExp(final Exception exception) {
-		return validationExpHandler.handle(exception);
+	public ResponseEntity<byte[]> handleValidationExp(final Exception exception) {
+		return handle(exception, validationExpHandler);
 	}
 
 	/**
@@ -195,8 +284,8 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler(TypeMismatchException.class)
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleTypeMismatchExp(final TypeMismatchException exception) {
-		return typeMismatchExpHandler.handle(exception);
+	public ResponseEntity<byte[]> handleTypeMismatchExp(final TypeMismatchException exception) {
+		return handle(exception, typeMismatchExpHandler);
 	}
 
 	/**
@@ -210,8 +299,8 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler({ EntityNotFoundUnrecoverableException.class, EntityNotFoundException.class })
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleBusinessEntityNotFoundException(Exception exception) {
-		return notFoundExceptionHandler.handle(exception);
+	public ResponseEntity<byte[]> handleBusinessEntityNotFoundException(Exception exception) {
+		return handle(exception, notFoundExceptionHandler);
 	}
 
 	/**
@@ -223,13 +312,59 @@ public class BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler(Exception.class)
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleException(Exception exception) {
+	public ResponseEntity<byte[]> handleException(Exception exception) {
+		return handle(exception, defaultExpHandler);
+	}
+
+	private ResponseEntity<ExceptionResponse> handleBadRequest(Exception exception) {
+		return new ResponseEntity<>(ExceptionResponse.of(HttpStatus.BAD_REQUEST), HttpStatus.BAD_REQUEST);
+	}
+
+	private ResponseEntity<ExceptionResponse> handleDefault(Exception exception) {
+		final HttpStatus httpStatus = resolutions.get(exception.getClass()).status;
+		return new ResponseEntity<>(ExceptionResponse.of(httpStatus, exception.getMessage()), httpStatus);
+	}
+
+	/**
+	 * Resolve the status of an exception type from its {@link ResponseStatus}
+	 * annotation, and the timer of its handling.
+	 */
+	private Resolution resolve(Class<?> type) {
 		HttpStatus httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
-		ResponseStatus responseStatus = AnnotationUtils.findAnnotation(exception.getClass(), ResponseStatus.class);
+		ResponseStatus responseStatus = AnnotationUtils.findAnnotation(type, ResponseStatus.class);
 		if (Objects.nonNull(responseStatus)) {
 			httpStatus = responseStatus.value();
 		}
-		return new ResponseEntity<>(ExceptionResponse.of(httpStatus, exception.getMessage()), httpStatus);
+		return new Resolution(httpStatus, timers.computeIfAbsent(type.getName(), this::timer));
+	}
+
+	/**
+	 * Register the timer of an exception type, tagged with its name while there
+	 * are tag slots left.
+	 */
+	private Timer timer(String typeName) {
+		final String tag = timedTypes.incrementAndGet() <= MAX_EXCEPTION_TYPES ? typeName : OTHER_EXCEPTION_TYPES;
+		// @formatter:off
+		return Timer.builder(METRIC_NAME)
+		            .description("Handling of exceptions by the exception handler")
+		            .tag("exception", tag)
+		            .register(meterRegistry);
+		// @formatter:on
+	}
+
+	/**
+	 * Status and timer of an exception type.
+	 */
+	private static final class Resolution {
+
+		private final HttpStatus status;
+
+		private final Timer timer;
+
+		Resolution(HttpStatus status, Timer timer) {
+			this.status = status;
+			this.timer = timer;
+		}
 	}
 
 }
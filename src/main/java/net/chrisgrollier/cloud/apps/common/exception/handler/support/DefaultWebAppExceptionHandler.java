@@ -9,7 +9,6 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import net.chrisgrollier.cloud.apps.common.exception.FunctionalException;
 import net.chrisgrollier.cloud.apps.common.exception.UnrecoverableFunctionalException;
-import net.chrisgrollier.cloud.apps.common.exception.handler.ExceptionResponse;
 import net.chrisgrollier.cloud.apps.common.exception.handler.ServiceExceptionHandler;
 import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
 
@@ -45,7 +44,7 @@ public class DefaultWebAppExceptionHandler extends BasicWebAppExceptionHandler {
 	 */
 	@ExceptionHandler({ UnrecoverableFunctionalException.class, FunctionalException.class })
 	@ResponseBody
-	public ResponseEntity<ExceptionResponse> handleFunctionalException(Exception exception) {
-		return functionalExceptionHandler.handle(exception);
+	public ResponseEntity<byte[]> handleFunctionalException(Exception exception) {
+		return handle(exception, functionalExceptionHandler);
 	}
 }
@@ -4,6 +4,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
 import org.springframework.context.i18n.LocaleContextHolder;
 
 /**
@@ -53,6 +54,43 @@ public interface MessageManager {
 	 */
 	String getMessage(String key, Locale locale, Object... args);
 
+	/**
+	 * Return whether a message exists for the given key, using the default
+	 * {@link Locale}. The default implementation delegates to
+	 * {@link #hasMessage(String, Locale)}, using
+	 * {@link LocaleContextHolder#getLocale()} as {@link Locale}.
+	 * 
+	 * @param key
+	 *            key of the message
+	 * @return true if {@link #getMessage(String, Object...)} can render a message
+	 *         for the given key
+	 */
+	default boolean hasMessage(String key) {
+		return this.hasMessage(key, LocaleContextHolder.getLocale());
+	}
+
+	/**
+	 * Return whether a message exists for the given key and {@link Locale}, so
+	 * that callers able to fall back on another message do not have to rely on
+	 * {@link NoSuchMessageException}. The default implementation tries to render
+	 * the message, implementations should override it with a cheaper lookup.
+	 * 
+	 * @param key
+	 *            key of the message
+	 * @param locale
+	 *            locale to be used
+	 * @return true if {@link #getMessage(String, Locale, Object...)} can render a
+	 *         message for the given key and {@link Locale}
+	 */
+	default boolean hasMessage(String key, Locale locale) {
+		try {
+			this.getMessage(key, locale);
+			return true;
+		} catch (NoSuchMessageException e) {
+			return false;
+		}
+	}
+
 	/**
 	 * Return a message based on the given {@link MessageSourceResolvable} using the
 	 * default {@link Locale}. The default implementation delegates to
@@ -0,0 +1,232 @@
+package net.chrisgrollier.cloud.apps.common.internal.i18n;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
+
+/**
+ * {@link MessageManager} caching, for each key and locale, the message pattern
+ * resolved by the {@link MessageSource} and its compiled {@link MessageFormat},
+ * so that rendering a message neither resolves the bundle nor parses the
+ * pattern again. Missing messages are cached as well, so that
+ * {@link #hasMessage(String, Locale)} answers without any exception for unknown
+ * keys. Messages without arguments are rendered as the
+ * {@link MessageSource} does, without formatting. Maps returned by
+ * {@link #getAllMessages(String, Locale[], Object...)} are immutable, and cached
+ * for messages without arguments.
+ * <p>
+ * Messages are cached for the supported locales only: other locales are
+ * resolved as the supported locale of the same language if any, else as the
+ * first supported locale, so that arbitrary client locales share their cache
+ * entries. Caches are bounded, least recently used entries being evicted.
+ * <p>
+ * Caches are never refreshed: {@link #clear()} should be called when the
+ * messages of the {@link MessageSource} are reloaded.
+ * 
+ * @author Atos
+ *
+ */
+public class CachingMessageManager extends DefaultMessageManager {
+
+	/** maximum number of cached entries of each cache */
+	private static final int MAX_ENTRIES = 10000;
+
+	/** The message source holding application messages */
+	private final MessageSource messageSource;
+
+	/** marker of keys without message for a locale */
+	private static final CompiledMessage MISSING = new CompiledMessage(null, null);
+
+	/** compiled messages, or {@link #MISSING}, by key and supported locale */
+	private final Cache<MessageKey, CompiledMessage> messages = Caffeine.newBuilder().maximumSize(MAX_ENTRIES)
+			.build();
+
+	/** messages without arguments by key and locales */
+	private final Cache<MessageKey, Map<Locale, String>> allMessages = Caffeine.newBuilder()
+			.maximumSize(MAX_ENTRIES).build();
+
+	public CachingMessageManager(MessageSource messageSource) {
+		super(messageSource);
+		this.messageSource = messageSource;
+	}
+
+	public CachingMessageManager(MessageSource messageSource, Locale[] supportedLocales) {
+		super(messageSource, supportedLocales);
+		this.messageSource = messageSource;
+	}
+
+	@Override
+	public String getMessage(String key, Locale locale, Object... args) {
+		if (args != null) {
+			for (Object arg : args) {
+				if (arg instanceof MessageSourceResolvable) {
+					// arguments to be resolved by the message source
+					return super.getMessage(key, locale, args);
+				}
+			}
+		}
+		final CompiledMessage message = compiledMessage(key, locale);
+		if (message == MISSING) {
+			throw new NoSuchMessageException(key, locale);
+		}
+		return message.format(args);
+	}
+
+	@Override
+	public boolean hasMessage(String key, Locale locale) {
+		return compiledMessage(key, locale) != MISSING;
+	}
+
+	@Override
+	public Map<Locale, String> getAllMessages(String key, Locale[] locales, Object... args) {
+		if (args != null && args.length > 0) {
+			return resolveAllMessages(key, locales, args);
+		}
+		return allMessages.get(new MessageKey(key, Arrays.asList(locales)),
+				cacheKey -> resolveAllMessages(key, locales, args));
+	}
+
+	@Override
+	public Map<Locale, String> getAllMessages(MessageSourceResolvable messageSourceResolvable, Locale[] locales) {
+		return Collections.unmodifiableMap(super.getAllMessages(messageSourceResolvable, locales));
+	}
+
+	/**
+	 * Discard all cached messages.
+	 */
+	public void clear() {
+		messages.invalidateAll();
+		allMessages.invalidateAll();
+	}
+
+	/**
+	 * Render the message of each locale, the key formatted with the arguments
+	 * being used as message when it can not be resolved, as
+	 * {@link DefaultMessageManager} does.
+	 */
+	private Map<Locale, String> resolveAllMessages(String key, Locale[] locales, Object... args) {
+		final Map<Locale, String> result = new LinkedHashMap<>(locales.length * 4 / 3 + 1);
+		for (Locale locale : locales) {
+			if (!result.containsKey(locale)) {
+				result.put(locale, hasMessage(key, locale) ? getMessage(key, locale, args)
+						: super.getMessage(new DefaultMessageSourceResolvable(new String[] { key }, args, key), locale));
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private CompiledMessage compiledMessage(String key, Locale locale) {
+		final Locale supported = supportedLocale(locale);
+		return messages.get(new MessageKey(key, supported), cacheKey -> {
+			// without arguments, the message source returns the raw pattern, and
+			// without default message, null for a missing message
+			final String pattern = messageSource.getMessage(key, null, null, supported);
+			return pattern == null ? MISSING : new CompiledMessage(pattern, supported);
+		});
+	}
+
+	/**
+	 * Return the supported locale messages of the given locale are resolved
+	 * with: the locale itself if supported, else the first supported locale of
+	 * the same language, else the first supported locale.
+	 */
+	private Locale supportedLocale(Locale locale) {
+		final Locale[] supportedLocales = getSupportedLocales();
+		if (supportedLocales == null || supportedLocales.length == 0) {
+			return locale;
+		}
+		Locale sameLanguage = null;
+		for (Locale supportedLocale : supportedLocales) {
+			if (supportedLocale.equals(locale)) {
+				return supportedLocale;
+			}
+			if (sameLanguage == null && supportedLocale.getLanguage().equals(locale.getLanguage())) {
+				sameLanguage = supportedLocale;
+			}
+		}
+		return sameLanguage != null ? sameLanguage : supportedLocales[0];
+	}
+
+	/**
+	 * A message pattern and its lazily compiled format.
+	 */
+	private static final class CompiledMessage {
+
+		private final String pattern;
+
+		private final Locale locale;
+
+		private volatile MessageFormat format;
+
+		CompiledMessage(String pattern, Locale locale) {
+			this.pattern = pattern;
+			this.locale = locale;
+		}
+
+		String format(Object[] args) {
+			if (args == null || args.length == 0) {
+				return pattern;
+			}
+			MessageFormat compiled = format;
+			if (compiled == null) {
+				compiled = new MessageFormat(pattern, locale);
+				format = compiled;
+			}
+			// MessageFormat is not thread safe, cloning is far cheaper than parsing
+			return ((MessageFormat) compiled.clone()).format(args);
+		}
+	}
+
+	/**
+	 * Cache key made of a message key and of a locale or list of locales.
+	 */
+	private static final class MessageKey {
+
+		private final String key;
+
+		private final Object locales;
+
+		MessageKey(String key, Locale locale) {
+			this.key = key;
+			this.locales = locale;
+		}
+
+		MessageKey(String key, List<Locale> locales) {
+			this.key = key;
+			this.locales = locales;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MessageKey)) {
+				return false;
+			}
+			final MessageKey other = (MessageKey) obj;
+			return key.equals(other.key) && Objects.equals(locales, other.locales);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * key.hashCode() + Objects.hashCode(locales);
+		}
+	}
+
+}
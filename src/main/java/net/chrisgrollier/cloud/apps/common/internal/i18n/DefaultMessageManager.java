@@ -49,6 +49,12 @@ public class DefaultMessageManager implements MessageManager {
 		return this.messageSource.getMessage(key, args, locale);
 	}
 
+	@Override
+	public boolean hasMessage(String key, Locale locale) {
+		// without default message, a missing message is returned as null
+		return this.messageSource.getMessage(key, null, null, locale) != null;
+	}
+
 	@Override
 	public String getMessage(MessageSourceResolvable messageSourceResolvable, Locale locale) {
 		return this.messageSource.getMessage(messageSourceResolvable, locale);
@@ -0,0 +1,280 @@
+package net.chrisgrollier.cloud.apps.common.internal.util.mapping.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Annotation processor generating the implementations of the interfaces
+ * annotated with
+ * {@link net.chrisgrollier.cloud.apps.common.util.mapping.GeneratedBidiMapper}.
+ * The generated code only references the annotation by name, so that this
+ * processor can be compiled before the rest of the project.
+ * 
+ * @author Atos
+ *
+ */
+public class GeneratedBidiMapperProcessor extends AbstractProcessor {
+
+	private static final String ANNOTATION = "net.chrisgrollier.cloud.apps.common.util.mapping.GeneratedBidiMapper";
+
+	private static final String ABSTRACT_MAPPER = "net.chrisgrollier.cloud.apps.common.util.mapping.AbstractBidiMapper";
+
+	private static final String COMPONENT = "org.springframework.stereotype.Component";
+
+	private static final String IMPL_SUFFIX = "Impl";
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(ANNOTATION);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.INTERFACE) {
+					error(element, null, "@GeneratedBidiMapper may only annotate an interface");
+					continue;
+				}
+				final TypeElement mapper = (TypeElement) element;
+				final AnnotationMirror mirror = annotationMirror(mapper);
+				try {
+					generate(mapper, mirror);
+				} catch (IOException e) {
+					error(mapper, mirror, "Unable to generate the implementation of " + mapper + ": " + e);
+				}
+			}
+		}
+		return true;
+	}
+
+	private void generate(TypeElement mapper, AnnotationMirror mirror) throws IOException {
+		final Map<String, AnnotationValue> values = annotationValues(mirror);
+		final TypeElement model = typeElement(values.get("model"));
+		final TypeElement entity = typeElement(values.get("entity"));
+		final Set<String> includes = names(values.get("includes"));
+		final Set<String> excludes = names(values.get("excludes"));
+		final Set<String> fromExcludes = names(values.get("fromExcludes"));
+		final Set<String> toExcludes = names(values.get("toExcludes"));
+		final boolean component = values.get("component") == null || (Boolean) values.get("component").getValue();
+
+		final Map<String, ExecutableElement> modelGetters = getters(model);
+		final Map<String, ExecutableElement> modelSetters = setters(model);
+		final Map<String, ExecutableElement> entityGetters = getters(entity);
+		final Map<String, ExecutableElement> entitySetters = setters(entity);
+
+		final Set<String> known = new LinkedHashSet<>(modelGetters.keySet());
+		known.addAll(modelSetters.keySet());
+		known.addAll(entityGetters.keySet());
+		known.addAll(entitySetters.keySet());
+		boolean valid = true;
+		for (Set<String> names : Arrays.asList(includes, excludes, fromExcludes, toExcludes)) {
+			for (String name : names) {
+				if (!known.contains(name)) {
+					error(mapper, mirror, "Unknown property " + name + " of " + model + " and " + entity);
+					valid = false;
+				}
+			}
+		}
+		if (!valid) {
+			return;
+		}
+		final List<String> fromProperties = properties(entityGetters, modelSetters, includes, excludes, fromExcludes);
+		final List<String> toProperties = properties(modelGetters, entitySetters, includes, excludes, toExcludes);
+
+		final String packageName = processingEnv.getElementUtils().getPackageOf(mapper).getQualifiedName().toString();
+		final String simpleName = mapper.getSimpleName() + IMPL_SUFFIX;
+		final String modelName = model.getQualifiedName().toString();
+		final String entityName = entity.getQualifiedName().toString();
+
+		final StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/**\n");
+		source.append(" * Implementation of {@link ").append(mapper.getQualifiedName())
+				.append("} generated by\n * {@link ").append(getClass().getName()).append("}.\n");
+		source.append(" */\n");
+		if (component) {
+			source.append('@').append(COMPONENT).append('\n');
+		}
+		source.append("public class ").append(simpleName).append(" extends ").append(ABSTRACT_MAPPER).append('<')
+				.append(modelName).append(", ").append(entityName).append(">\n\t\timplements ")
+				.append(mapper.getQualifiedName()).append(" {\n\n");
+		source.append("\tpublic ").append(simpleName).append("() {\n");
+		source.append("\t\tsuper(").append(modelName).append(".class, ").append(entityName).append(".class);\n");
+		source.append("\t}\n\n");
+		source.append("\t@Override\n");
+		source.append("\tpublic ").append(modelName).append(" copyFrom(").append(modelName).append(" t, ")
+				.append(entityName).append(" s) {\n");
+		for (String property : fromProperties) {
+			source.append("\t\tt.").append(modelSetters.get(property).getSimpleName()).append("(s.")
+					.append(entityGetters.get(property).getSimpleName()).append("());\n");
+		}
+		source.append("\t\treturn t;\n");
+		source.append("\t}\n\n");
+		source.append("\t@Override\n");
+		source.append("\tpublic ").append(entityName).append(" copyTo(").append(modelName).append(" t, ")
+				.append(entityName).append(" s) {\n");
+		for (String property : toProperties) {
+			source.append("\t\ts.").append(entitySetters.get(property).getSimpleName()).append("(t.")
+					.append(modelGetters.get(property).getSimpleName()).append("());\n");
+		}
+		source.append("\t\treturn s;\n");
+		source.append("\t}\n");
+		source.append("}\n");
+
+		final String qualifiedName = packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, mapper).openWriter()) {
+			writer.write(source.toString());
+		}
+	}
+
+	/**
+	 * Return the names of the properties to copy from the source getters to the
+	 * target setters, in the order of the getters.
+	 */
+	private List<String> properties(Map<String, ExecutableElement> getters, Map<String, ExecutableElement> setters,
+			Set<String> includes, Set<String> excludes, Set<String> directionExcludes) {
+		final List<String> properties = new ArrayList<>();
+		for (Map.Entry<String, ExecutableElement> getter : getters.entrySet()) {
+			final String name = getter.getKey();
+			final ExecutableElement setter = setters.get(name);
+			if (setter == null || !includes.isEmpty() && !includes.contains(name) || excludes.contains(name)
+					|| directionExcludes.contains(name)) {
+				continue;
+			}
+			if (processingEnv.getTypeUtils().isAssignable(getter.getValue().getReturnType(),
+					setter.getParameters().get(0).asType())) {
+				properties.add(name);
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * Return the public getters of a class, including inherited ones, indexed by
+	 * property name.
+	 */
+	private Map<String, ExecutableElement> getters(TypeElement type) {
+		final Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+		for (ExecutableElement method : publicMethods(type)) {
+			final String name = method.getSimpleName().toString();
+			if (!method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID
+					|| "getClass".equals(name)) {
+				continue;
+			}
+			if (name.startsWith("get") && name.length() > 3) {
+				getters.putIfAbsent(propertyName(name.substring(3)), method);
+			} else if (name.startsWith("is") && name.length() > 2
+					&& method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+				getters.putIfAbsent(propertyName(name.substring(2)), method);
+			}
+		}
+		return getters;
+	}
+
+	/**
+	 * Return the public setters of a class, including inherited ones, indexed by
+	 * property name.
+	 */
+	private Map<String, ExecutableElement> setters(TypeElement type) {
+		final Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+		for (ExecutableElement method : publicMethods(type)) {
+			final String name = method.getSimpleName().toString();
+			if (name.startsWith("set") && name.length() > 3 && method.getParameters().size() == 1) {
+				setters.putIfAbsent(propertyName(name.substring(3)), method);
+			}
+		}
+		return setters;
+	}
+
+	private List<ExecutableElement> publicMethods(TypeElement type) {
+		final List<ExecutableElement> methods = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter
+				.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if (method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)) {
+				methods.add(method);
+			}
+		}
+		return methods;
+	}
+
+	/**
+	 * Decapitalize a property name as {@link java.beans.Introspector} does.
+	 */
+	private static String propertyName(String name) {
+		if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+			return name;
+		}
+		return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private AnnotationMirror annotationMirror(TypeElement mapper) {
+		for (AnnotationMirror mirror : mapper.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) {
+				return mirror;
+			}
+		}
+		throw new IllegalStateException(mapper + " is not annotated with " + ANNOTATION);
+	}
+
+	private static Map<String, AnnotationValue> annotationValues(AnnotationMirror mirror) {
+		final Map<String, AnnotationValue> values = new LinkedHashMap<>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues()
+				.entrySet()) {
+			values.put(value.getKey().getSimpleName().toString(), value.getValue());
+		}
+		return values;
+	}
+
+	private static TypeElement typeElement(AnnotationValue value) {
+		return (TypeElement) ((DeclaredType) (TypeMirror) value.getValue()).asElement();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<String> names(AnnotationValue value) {
+		final Set<String> names = new LinkedHashSet<>();
+		if (value != null) {
+			for (AnnotationValue name : (Collection<? extends AnnotationValue>) value.getValue()) {
+				names.add((String) name.getValue());
+			}
+		}
+		return names;
+	}
+
+	private void error(Element element, AnnotationMirror mirror, String message) {
+		processingEnv.getMessager().printMessage(Kind.ERROR, message, element, mirror);
+	}
+
+}
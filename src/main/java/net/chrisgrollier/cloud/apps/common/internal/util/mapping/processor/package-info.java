@@ -0,0 +1 @@
+package net.chrisgrollier.cloud.apps.common.internal.util.mapping.processor;
@@ -0,0 +1,279 @@
+package net.chrisgrollier.cloud.apps.common.util.concurrent;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import net.chrisgrollier.cloud.apps.common.exception.TechnicalException;
+
+/**
+ * Micro batching loader: keys requested concurrently, possibly by many threads,
+ * are collected during a short window and loaded all at once by a single call
+ * to a batch function, whose results are then handed back to the waiting
+ * callers. A batch is loaded when the window started by its first key elapses
+ * or as soon as it holds the maximum number of keys, whichever comes first.
+ * Keys requested twice in the same batch are loaded once.
+ * <p>
+ * Batches are loaded by a dedicated pool of daemon threads, so that the batch
+ * function must not rely on any caller thread bound state such as a
+ * transaction.
+ * <p>
+ * Callers of {@link #get(Object)} wait at most a configured timeout for their
+ * batch. Once the loader is closed, keys not loaded yet fail with an
+ * {@link IllegalStateException}.
+ * 
+ * @author Atos
+ *
+ * @param <K>
+ *            class of the keys
+ * @param <V>
+ *            class of the values
+ */
+public class BatchLoader<K, V> implements AutoCloseable {
+
+	/** the function loading a batch of keys, missing keys being absent */
+	private final Function<Collection<K>, Map<K, V>> batchFunction;
+
+	/** the batching window, in nanoseconds */
+	private final long window;
+
+	/** the maximum number of keys of a batch */
+	private final int maxBatchSize;
+
+	/** how long {@link #get(Object)} waits for a batch, in nanoseconds */
+	private final long timeout;
+
+	/** schedules the end of batching windows */
+	private final ScheduledExecutorService scheduler;
+
+	/** loads batches */
+	private final ExecutorService executor;
+
+	/** guards pending */
+	private final Object lock = new Object();
+
+	/** the batch being collected */
+	private Map<K, CompletableFuture<V>> pending;
+
+	/** whether the loader is closed, guarded by lock */
+	private boolean closed;
+
+	/** number of loaded batches */
+	private final LongAdder batches = new LongAdder();
+
+	/** number of loaded keys */
+	private final LongAdder loadedKeys = new LongAdder();
+
+	/**
+	 * Create a new loader.
+	 * 
+	 * @param name
+	 *            the name of the loader, used to name its threads
+	 * @param batchFunction
+	 *            the function loading a batch of keys, returning values indexed
+	 *            by key, missing keys being absent
+	 * @param window
+	 *            the batching window, in nanoseconds
+	 * @param maxBatchSize
+	 *            the maximum number of keys of a batch
+	 * @param concurrency
+	 *            the maximum number of batches loaded concurrently
+	 * @param timeout
+	 *            how long {@link #get(Object)} waits for a batch, in
+	 *            nanoseconds
+	 */
+	public BatchLoader(String name, Function<Collection<K>, Map<K, V>> batchFunction, long window, int maxBatchSize,
+			int concurrency, long timeout) {
+		this.batchFunction = batchFunction;
+		this.window = window;
+		this.maxBatchSize = maxBatchSize;
+		this.timeout = timeout;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory(name + "-scheduler"));
+		this.executor = Executors.newFixedThreadPool(concurrency, threadFactory(name + "-loader"));
+	}
+
+	/**
+	 * Request the value of a key, to be loaded with the next batch.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return a future completed with the value of the key, or <code>null</code>
+	 *         if the key is missing, once its batch is loaded
+	 */
+	public CompletableFuture<V> load(K key) {
+		Map<K, CompletableFuture<V>> fullBatch = null;
+		CompletableFuture<V> value;
+		synchronized (lock) {
+			if (closed) {
+				value = new CompletableFuture<>();
+				value.completeExceptionally(closedException());
+				return value;
+			}
+			if (pending == null) {
+				final Map<K, CompletableFuture<V>> batch = new LinkedHashMap<>();
+				pending = batch;
+				scheduler.schedule(() -> dispatchPending(batch), window, TimeUnit.NANOSECONDS);
+			}
+			value = pending.get(key);
+			if (value == null) {
+				value = new CompletableFuture<>();
+				pending.put(key, value);
+			}
+			if (pending.size() >= maxBatchSize) {
+				fullBatch = pending;
+				pending = null;
+			}
+		}
+		if (fullBatch != null) {
+			dispatch(fullBatch);
+		}
+		return value;
+	}
+
+	/**
+	 * Return the value of a key, waiting for its batch to be loaded.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the value of the key, or <code>null</code> if the key is missing
+	 * @throws TechnicalException
+	 *             if the batch was not loaded within the timeout or the caller
+	 *             was interrupted while waiting
+	 */
+	public V get(K key) {
+		try {
+			return load(key).get(timeout, TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new TechnicalException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new TechnicalException("Timed out waiting for the batch loading key " + key, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TechnicalException("Interrupted while waiting for the batch loading key " + key, e);
+		}
+	}
+
+	/**
+	 * Return the number of loaded batches.
+	 * 
+	 * @return the number of loaded batches
+	 */
+	public long getBatches() {
+		return batches.sum();
+	}
+
+	/**
+	 * Return the number of loaded keys, which divided by the number of batches
+	 * gives the average batch size.
+	 * 
+	 * @return the number of loaded keys
+	 */
+	public long getLoadedKeys() {
+		return loadedKeys.sum();
+	}
+
+	/**
+	 * Stop the loader threads. Batches that are not being loaded are not loaded
+	 * anymore and their keys fail.
+	 */
+	@Override
+	public void close() {
+		final Map<K, CompletableFuture<V>> batch;
+		synchronized (lock) {
+			closed = true;
+			batch = pending;
+			pending = null;
+		}
+		if (batch != null) {
+			fail(batch, closedException());
+		}
+		scheduler.shutdownNow();
+		for (Runnable notLoaded : executor.shutdownNow()) {
+			if (notLoaded instanceof BatchLoader.BatchTask) {
+				fail(((BatchLoader<?, ?>.BatchTask) notLoaded).batch, closedException());
+			}
+		}
+	}
+
+	/**
+	 * Dispatch a batch at the end of its window, unless it was dispatched early
+	 * once full, or failed when closing.
+	 */
+	private void dispatchPending(Map<K, CompletableFuture<V>> batch) {
+		synchronized (lock) {
+			if (pending != batch) {
+				return;
+			}
+			pending = null;
+		}
+		dispatch(batch);
+	}
+
+	private void dispatch(Map<K, CompletableFuture<V>> batch) {
+		try {
+			executor.execute(new BatchTask(batch));
+		} catch (RejectedExecutionException e) {
+			fail(batch, closedException());
+		}
+	}
+
+	private static void fail(Map<?, ? extends CompletableFuture<?>> batch, Throwable cause) {
+		batch.values().forEach(value -> value.completeExceptionally(cause));
+	}
+
+	private static IllegalStateException closedException() {
+		return new IllegalStateException("Batch loader closed");
+	}
+
+	private static ThreadFactory threadFactory(String name) {
+		final AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Loads a batch, recognized among the tasks not run when closing.
+	 */
+	private final class BatchTask implements Runnable {
+
+		private final Map<K, CompletableFuture<V>> batch;
+
+		BatchTask(Map<K, CompletableFuture<V>> batch) {
+			this.batch = batch;
+		}
+
+		@Override
+		public void run() {
+			batches.increment();
+			loadedKeys.add(batch.size());
+			try {
+				final Map<K, V> values = batchFunction.apply(batch.keySet());
+				batch.forEach((key, value) -> value.complete(values.get(key)));
+			} catch (RuntimeException | Error e) {
+				fail(batch, e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package net.chrisgrollier.cloud.apps.common.util.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent calls for the same key: while a call for a key is in
+ * flight, other callers asking for the same key do not call the loader again
+ * but wait for the in flight call and share its result, or its exception. Once
+ * the call is over, the next caller triggers a new call. Nothing is cached.
+ * 
+ * @author Atos
+ *
+ * @param <K>
+ *            class of the keys
+ * @param <V>
+ *            class of the values
+ */
+public class SingleFlight<K, V> {
+
+	/** calls in flight by key */
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/** number of calls */
+	private final LongAdder calls = new LongAdder();
+
+	/** number of calls that shared an in flight call */
+	private final LongAdder coalescedCalls = new LongAdder();
+
+	/**
+	 * Return the value of the given key, either by calling the loader or, if a
+	 * call for the same key is in flight, by waiting for its result.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param loader
+	 *            the function computing the value of a key
+	 * @return the value of the key
+	 */
+	public V execute(K key, Function<? super K, ? extends V> loader) {
+		calls.increment();
+		final CompletableFuture<V> call = new CompletableFuture<>();
+		final CompletableFuture<V> existingCall = inFlight.putIfAbsent(key, call);
+		if (existingCall != null) {
+			coalescedCalls.increment();
+			return join(existingCall);
+		}
+		try {
+			final V value = loader.apply(key);
+			call.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+
+	/**
+	 * Return the total number of calls to {@link #execute(Object, Function)}.
+	 * 
+	 * @return the total number of calls
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * Return the number of calls to {@link #execute(Object, Function)} that
+	 * shared the result of an in flight call instead of calling the loader.
+	 * 
+	 * @return the number of coalesced calls
+	 */
+	public long getCoalescedCalls() {
+		return coalescedCalls.sum();
+	}
+
+	private static <V> V join(CompletableFuture<V> call) {
+		try {
+			return call.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1 @@
+package net.chrisgrollier.cloud.apps.common.util.concurrent;
\ No newline at end of file
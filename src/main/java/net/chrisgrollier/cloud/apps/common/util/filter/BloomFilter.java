@@ -0,0 +1,145 @@
+package net.chrisgrollier.cloud.apps.common.util.filter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * A thread safe, lock free Bloom filter of strings: a probabilistic set that
+ * can tell for sure that a string was never added, but may wrongly tell that a
+ * string was added with a probability depending on its fill ratio. Strings
+ * can not be removed.
+ * <p>
+ * Bits positions are derived from a 128 bits murmur3 hash using double hashing,
+ * and the number of set bits is tracked so that the fill ratio and the expected
+ * false positive probability can be reported.
+ * 
+ * @author Atos
+ *
+ */
+public class BloomFilter {
+
+	/** the bits of the filter */
+	private final AtomicLongArray bits;
+
+	/** the number of bits of the filter */
+	private final long bitSize;
+
+	/** the number of hash functions */
+	private final int hashFunctions;
+
+	/** the number of set bits */
+	private final AtomicLong bitCount = new AtomicLong();
+
+	/**
+	 * Create a new filter sized for the given number of strings and false
+	 * positive probability.
+	 * 
+	 * @param expectedInsertions
+	 *            the number of strings expected to be added
+	 * @param fpp
+	 *            the desired false positive probability, between 0 and 1
+	 *            exclusive, when the expected number of strings is added
+	 */
+	public BloomFilter(long expectedInsertions, double fpp) {
+		if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+			throw new IllegalArgumentException(
+					"Invalid expected insertions " + expectedInsertions + " or false positive probability " + fpp);
+		}
+		final long size = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		final int words = (int) Math.min(Integer.MAX_VALUE - 8, (size + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitSize = words * 64L;
+		this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+	}
+
+	/**
+	 * Add a string to the filter.
+	 * 
+	 * @param value
+	 *            the string to add
+	 */
+	public void put(String value) {
+		final ByteBuffer hash = hash(value);
+		final long hash1 = hash.getLong();
+		final long hash2 = hash.getLong();
+		long combinedHash = hash1;
+		for (int i = 0; i < hashFunctions; i++) {
+			set((combinedHash & Long.MAX_VALUE) % bitSize);
+			combinedHash += hash2;
+		}
+	}
+
+	/**
+	 * Tell whether the given string might have been added to the filter.
+	 * 
+	 * @param value
+	 *            the string to look for
+	 * @return <code>false</code> if the string was definitely never added,
+	 *         <code>true</code> if it might have been added
+	 */
+	public boolean mightContain(String value) {
+		final ByteBuffer hash = hash(value);
+		final long hash1 = hash.getLong();
+		final long hash2 = hash.getLong();
+		long combinedHash = hash1;
+		for (int i = 0; i < hashFunctions; i++) {
+			final long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+			combinedHash += hash2;
+		}
+		return true;
+	}
+
+	public long getBitSize() {
+		return bitSize;
+	}
+
+	public int getHashFunctions() {
+		return hashFunctions;
+	}
+
+	/**
+	 * Return the ratio of set bits.
+	 * 
+	 * @return the ratio of set bits, between 0 and 1
+	 */
+	public double getFillRatio() {
+		return (double) bitCount.get() / bitSize;
+	}
+
+	/**
+	 * Return the probability that {@link #mightContain(String)} wrongly returns
+	 * <code>true</code> for a string never added, given the current fill ratio.
+	 * 
+	 * @return the current expected false positive probability
+	 */
+	public double getExpectedFpp() {
+		return Math.pow(getFillRatio(), hashFunctions);
+	}
+
+	private void set(long index) {
+		final int word = (int) (index >>> 6);
+		final long mask = 1L << index;
+		long current;
+		do {
+			current = bits.get(word);
+			if ((current & mask) != 0) {
+				return;
+			}
+		} while (!bits.compareAndSet(word, current, current | mask));
+		bitCount.incrementAndGet();
+	}
+
+	private static ByteBuffer hash(String value) {
+		return ByteBuffer.wrap(Hashing.murmur3_128().hashString(value, StandardCharsets.UTF_8).asBytes())
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+}
@@ -0,0 +1 @@
+package net.chrisgrollier.cloud.apps.common.util.filter;
\ No newline at end of file
@@ -1,7 +1,14 @@
 package net.chrisgrollier.cloud.apps.common.util.mapping;
 
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Abstract implementation of the {@link BidiMapper} interface providing basic
@@ -10,6 +17,11 @@ import org.slf4j.LoggerFactory;
  * {@link BidiMapper#copyFrom(Object, Object)} and
  * {@link BidiMapper#copyTo(Object, Object)} and a default constructor that
  * should invoke {@link #AbstractBidiMapper(Class, Class)}.
+ * <p>
+ * Instances of T and S are created through factories resolved once per mapper
+ * from the public constructors with no args of these classes, spun as
+ * {@link Supplier} lambdas with {@link LambdaMetafactory} so that creating an
+ * instance costs as much as a plain constructor call.
  * 
  * @author Atos
  *
@@ -23,11 +35,14 @@ public abstract class AbstractBidiMapper<T, S> implements BidiMapper<T, S> {
 	/** a log service for all subclasses */
 	protected final Logger logService = LoggerFactory.getLogger(this.getClass());
 
-	/** concrete class of T */
-	private final Class<T> tClass;
+	/** factory of T instances */
+	private final Supplier<T> tFactory;
+
+	/** factory of S instances */
+	private final Supplier<S> sFactory;
 
-	/** concrete class of S */
-	private final Class<S> sClass;
+	/** strategy of the bulk mapping methods */
+	private BulkMapping bulkMapping = BulkMapping.defaults();
 
 	/**
 	 * Constructor that shoud be inkoed by subclasses with arguments T.class and
@@ -40,8 +55,25 @@ public abstract class AbstractBidiMapper<T, S> implements BidiMapper<T, S> {
 	 */
 	protected AbstractBidiMapper(Class<T> tClass, Class<S> sClass) {
 		super();
-		this.tClass = tClass;
-		this.sClass = sClass;
+		this.tFactory = factory(tClass);
+		this.sFactory = factory(sClass);
+	}
+
+	@Override
+	public BulkMapping getBulkMapping() {
+		return bulkMapping;
+	}
+
+	/**
+	 * Set the strategy of the bulk mapping methods, injected when the application
+	 * context defines one.
+	 * 
+	 * @param bulkMapping
+	 *            the bulk mapping strategy
+	 */
+	@Autowired(required = false)
+	public void setBulkMapping(BulkMapping bulkMapping) {
+		this.bulkMapping = bulkMapping;
 	}
 
 	@Override
@@ -62,7 +94,7 @@ public abstract class AbstractBidiMapper<T, S> implements BidiMapper<T, S> {
 	 * @return a new instance of T
 	 */
 	protected T newT() {
-		return newInstance(this.tClass);
+		return this.tFactory.get();
 	}
 
 	/**
@@ -73,24 +105,68 @@ public abstract class AbstractBidiMapper<T, S> implements BidiMapper<T, S> {
 	 * @return a new instance of S
 	 */
 	protected S newS() {
-		return newInstance(this.sClass);
+		return this.sFactory.get();
+	}
+
+	/**
+	 * Resolve the factory of the provided class, invoking its public constructor
+	 * with no args. The factory is a lambda spun by {@link LambdaMetafactory} if
+	 * the class is visible from the class loader of this class, a
+	 * {@link MethodHandle} invocation otherwise. If the class has no such
+	 * constructor, the returned factory throws an exception, so that subclasses
+	 * overriding {@link #newT()} or {@link #newS()} are not affected.
+	 * 
+	 * @param clazz
+	 *            the class of the objects to be instantiated.
+	 * @return a factory of instances of the provided class
+	 */
+	@SuppressWarnings("unchecked")
+	private <C> Supplier<C> factory(Class<C> clazz) {
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		final MethodHandle constructor;
+		try {
+			constructor = lookup.findConstructor(clazz, MethodType.methodType(void.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return () -> {
+				logService.error("Unable to instanciate class {}", clazz.getName(), e);
+				throw new RuntimeException("Unable to instanciate class " + clazz.getName()
+						+ ". This class should implement a public constructor with no args", e);
+			};
+		}
+		if (isVisible(clazz)) {
+			try {
+				return (Supplier<C>) LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+						MethodType.methodType(Object.class), constructor, MethodType.methodType(clazz)).getTarget()
+						.invokeExact();
+			} catch (Throwable e) {
+				logService.debug("Unable to spin a factory of class {}, falling back to method handle", clazz.getName(), e);
+			}
+		}
+		final MethodHandle generic = constructor.asType(MethodType.methodType(Object.class));
+		return () -> {
+			try {
+				return (C) generic.invokeExact();
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new RuntimeException("Unable to instanciate class " + clazz.getName(), e);
+			}
+		};
 	}
 
 	/**
-	 * Return a new instance of the provided class by invoking the
-	 * {@link Class#newInstance()} method.
+	 * Tell whether the provided class is resolved by the class loader of this
+	 * class, as required by lambdas spun in it.
 	 * 
 	 * @param clazz
-	 *            the class of the object to be instantiated.
-	 * @return a new instance of the provided class
+	 *            the class
+	 * @return <code>true</code> if the class is visible
 	 */
-	private <C> C newInstance(Class<C> clazz) {
+	private static boolean isVisible(Class<?> clazz) {
 		try {
-			return clazz.newInstance();
-		} catch (InstantiationException | IllegalAccessException e) {
-			logService.error("newInstance", e, "Unable to instanciate class {}", clazz.getName());
-			throw new RuntimeException("Unable to instanciate class " + clazz.getName()
-					+ ". This class should implement a public constructor with no args", e);
+			return Class.forName(clazz.getName(), false, AbstractBidiMapper.class.getClassLoader()) == clazz;
+		} catch (ClassNotFoundException e) {
+			return false;
 		}
 	}
 }
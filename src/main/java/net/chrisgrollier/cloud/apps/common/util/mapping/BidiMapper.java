@@ -1,7 +1,9 @@
 package net.chrisgrollier.cloud.apps.common.util.mapping;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -106,4 +108,98 @@ public interface BidiMapper<T, S> {
 	default Collection<T> froms(Iterable<S> s) {
 		return StreamSupport.stream(s.spliterator(), false).map(o -> from(o)).collect(Collectors.toList());
 	}
+
+	/**
+	 * Return a read-only view of an {@link Iterable} of T as a collection of S
+	 * instances. Individual mapping relies on {@link #to(Object)}, called each
+	 * time an element is accessed, so that no collection of S instances is built.
+	 * 
+	 * @param t
+	 *            the iterable of T instances
+	 * @return a lazy collection of S instances
+	 */
+	default Collection<S> tosView(Iterable<T> t) {
+		return new MappedCollection<>(t, this::to);
+	}
+
+	/**
+	 * Return a read-only view of an {@link Iterable} of S as a collection of T
+	 * instances. Individual mapping relies on {@link #from(Object)}, called each
+	 * time an element is accessed, so that no collection of T instances is built.
+	 * This suits results that are only iterated once, for instance to be
+	 * serialized.
+	 * 
+	 * @param s
+	 *            the iterable of S instances
+	 * @return a lazy collection of T instances
+	 */
+	default Collection<T> fromsView(Iterable<S> s) {
+		return new MappedCollection<>(s, this::from);
+	}
+
+	/**
+	 * Return a stream of S instances mapping lazily a stream of T instances.
+	 * Individual mapping relies on {@link #to(Object)}. Closing the returned
+	 * stream closes the given one, releasing the resources it may hold such as a
+	 * database cursor.
+	 * 
+	 * @param t
+	 *            the stream of T instances
+	 * @return a stream of S instances
+	 */
+	default Stream<S> toStream(Stream<T> t) {
+		return t.map(this::to);
+	}
+
+	/**
+	 * Return a stream of T instances mapping lazily a stream of S instances.
+	 * Individual mapping relies on {@link #from(Object)}. Closing the returned
+	 * stream closes the given one, releasing the resources it may hold such as a
+	 * database cursor.
+	 * 
+	 * @param s
+	 *            the stream of S instances
+	 * @return a stream of T instances
+	 */
+	default Stream<T> fromStream(Stream<S> s) {
+		return s.map(this::from);
+	}
+
+	/**
+	 * Return the strategy of the bulk mapping methods. Default implementation
+	 * returns {@link BulkMapping#defaults()}.
+	 * 
+	 * @return the bulk mapping strategy
+	 */
+	default BulkMapping getBulkMapping() {
+		return BulkMapping.defaults();
+	}
+
+	/**
+	 * Return a list of S instances based on an {@link Iterable} of T, presized
+	 * when the number of T instances is known and mapped in parallel above the
+	 * threshold of the {@link #getBulkMapping() bulk mapping strategy}. Individual
+	 * mapping relies on {@link #to(Object)}, which must be thread safe.
+	 * 
+	 * @param t
+	 *            the iterable of T instances
+	 * @return a list of S instances, in the order of the T instances
+	 */
+	default List<S> bulkTos(Iterable<T> t) {
+		return getBulkMapping().map(t, this::to);
+	}
+
+	/**
+	 * Return a list of T instances based on an {@link Iterable} of S, presized
+	 * when the number of S instances is known and mapped in parallel above the
+	 * threshold of the {@link #getBulkMapping() bulk mapping strategy}. Individual
+	 * mapping relies on {@link #from(Object)}, which must be thread safe.
+	 * 
+	 * @param s
+	 *            the iterable of S instances
+	 * @return a list of T instances, in the order of the S instances
+	 */
+	default List<T> bulkFroms(Iterable<S> s) {
+		return getBulkMapping().map(s, this::from);
+	}
 }
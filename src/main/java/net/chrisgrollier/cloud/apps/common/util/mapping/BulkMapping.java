@@ -0,0 +1,190 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Strategy of the bulk mapping methods of {@link BidiMapper}. Results are
+ * collected in lists presized when the number of mapped objects is known, and
+ * above a size threshold objects are mapped in parallel on a dedicated
+ * {@link ForkJoinPool}, results keeping the order of the mapped objects.
+ * <p>
+ * The {@link #defaults() default} strategy is configured by the
+ * {@value #THRESHOLD_PROPERTY} and {@value #PARALLELISM_PROPERTY} system
+ * properties.
+ * 
+ * @author Atos
+ *
+ */
+public class BulkMapping implements AutoCloseable {
+
+	/** system property of the default parallel mapping threshold */
+	public static final String THRESHOLD_PROPERTY = "bulk.mapping.threshold";
+
+	/** system property of the default parallelism */
+	public static final String PARALLELISM_PROPERTY = "bulk.mapping.parallelism";
+
+	/** default parallel mapping threshold */
+	public static final int DEFAULT_THRESHOLD = 10000;
+
+	/** number of leaf tasks per worker, to balance uneven mapping costs */
+	private static final int TASKS_PER_WORKER = 4;
+
+	/** the minimum number of objects mapped in parallel */
+	private final int threshold;
+
+	/** the pool of parallel mappings */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Create a new bulk mapping strategy with its own pool.
+	 * 
+	 * @param threshold
+	 *            the minimum number of objects mapped in parallel
+	 * @param parallelism
+	 *            the number of threads of the pool
+	 */
+	public BulkMapping(int threshold, int parallelism) {
+		this.threshold = threshold;
+		// pool indexes are only assigned once threads start
+		final AtomicInteger count = new AtomicInteger();
+		this.pool = new ForkJoinPool(parallelism, pool -> {
+			final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("bulk-mapping-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * Return the default strategy, shared by all mappers which are not given
+	 * another one.
+	 * 
+	 * @return the default bulk mapping strategy
+	 */
+	public static BulkMapping defaults() {
+		return Defaults.INSTANCE;
+	}
+
+	/**
+	 * Map the given objects.
+	 * 
+	 * @param sources
+	 *            the objects to map
+	 * @param function
+	 *            the mapping function, which must be thread safe
+	 * @return the list of mapped objects, in the order of the sources
+	 */
+	@SuppressWarnings("unchecked")
+	public <A, B> List<B> map(Iterable<A> sources, Function<? super A, ? extends B> function) {
+		final Object[] array;
+		if (sources instanceof Collection) {
+			final Collection<A> collection = (Collection<A>) sources;
+			if (collection.size() < threshold) {
+				final List<B> results = new ArrayList<>(collection.size());
+				for (A source : collection) {
+					results.add(function.apply(source));
+				}
+				return results;
+			}
+			array = collection.toArray();
+		} else {
+			final Spliterator<A> spliterator = sources.spliterator();
+			final long size = spliterator.hasCharacteristics(Spliterator.SIZED) ? spliterator.getExactSizeIfKnown() : -1;
+			if (size < threshold || size > Integer.MAX_VALUE) {
+				final List<B> results = size >= 0 && size <= Integer.MAX_VALUE ? new ArrayList<>((int) size) : new ArrayList<>();
+				spliterator.forEachRemaining(source -> results.add(function.apply(source)));
+				return results;
+			}
+			final List<Object> list = new ArrayList<>((int) size);
+			spliterator.forEachRemaining(list::add);
+			array = list.toArray();
+		}
+		final Object[] results = new Object[array.length];
+		final int leafSize = Math.max(1, array.length / (pool.getParallelism() * TASKS_PER_WORKER));
+		pool.invoke(new MapAction(array, results, 0, array.length, leafSize, (Function<Object, Object>) function));
+		return new ArrayList<>((List<B>) Arrays.asList(results));
+	}
+
+	/**
+	 * Return the minimum number of objects mapped in parallel.
+	 * 
+	 * @return the threshold
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Return the number of threads of the pool.
+	 * 
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Shutdown the pool.
+	 */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Map a range of objects, splitting it in halves down to the leaf size.
+	 */
+	private static class MapAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] sources;
+		private final Object[] results;
+		private final int from;
+		private final int to;
+		private final int leafSize;
+		private final Function<Object, Object> function;
+
+		MapAction(Object[] sources, Object[] results, int from, int to, int leafSize,
+				Function<Object, Object> function) {
+			this.sources = sources;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+			this.function = function;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= leafSize) {
+				for (int i = from; i < to; i++) {
+					results[i] = function.apply(sources[i]);
+				}
+			} else {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new MapAction(sources, results, from, middle, leafSize, function),
+						new MapAction(sources, results, middle, to, leafSize, function));
+			}
+		}
+	}
+
+	/**
+	 * Lazy holder of the default strategy.
+	 */
+	private static class Defaults {
+
+		static final BulkMapping INSTANCE = new BulkMapping(Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD),
+				Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+	}
+
+}
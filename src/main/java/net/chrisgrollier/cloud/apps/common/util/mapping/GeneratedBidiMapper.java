@@ -0,0 +1,65 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface extending {@link BidiMapper} whose implementation is
+ * generated at compile time. The generated class, named after the interface
+ * with an {@code Impl} suffix in the same package, extends
+ * {@link AbstractBidiMapper} and copies properties with plain getter and setter
+ * calls: a property is copied when the source class has a public getter and
+ * the target class a public setter of a compatible type.
+ * <p>
+ * Properties are selected by name: when {@link #includes()} is not empty only
+ * the listed properties are copied, and properties listed in
+ * {@link #excludes()} are never copied. {@link #fromExcludes()} and
+ * {@link #toExcludes()} exclude properties in one direction only, for instance
+ * a generated identifier that must not be copied to the entity.
+ * 
+ * @author Atos
+ *
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Documented
+public @interface GeneratedBidiMapper {
+
+	/**
+	 * @return the class T of the objects returned by from methods
+	 */
+	Class<?> model();
+
+	/**
+	 * @return the class S of the objects returned by to methods
+	 */
+	Class<?> entity();
+
+	/**
+	 * @return the only properties to copy, all if empty
+	 */
+	String[] includes() default {};
+
+	/**
+	 * @return the properties never copied
+	 */
+	String[] excludes() default {};
+
+	/**
+	 * @return the properties not copied by {@link BidiMapper#copyFrom(Object, Object)}
+	 */
+	String[] fromExcludes() default {};
+
+	/**
+	 * @return the properties not copied by {@link BidiMapper#copyTo(Object, Object)}
+	 */
+	String[] toExcludes() default {};
+
+	/**
+	 * @return whether the generated class is annotated as a spring component
+	 */
+	boolean component() default true;
+}
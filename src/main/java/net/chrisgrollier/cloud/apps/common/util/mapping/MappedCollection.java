@@ -0,0 +1,71 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Read-only view of an {@link Iterable}, mapping its elements when they are
+ * accessed. Elements are mapped again on each iteration and are thus not
+ * retained by the view.
+ * 
+ * @author Atos
+ *
+ * @param <A>
+ *            class of the source elements
+ * @param <B>
+ *            class of the mapped elements
+ */
+class MappedCollection<A, B> extends AbstractCollection<B> {
+
+	/** the source elements */
+	private final Iterable<A> sources;
+
+	/** the mapping function */
+	private final Function<? super A, ? extends B> function;
+
+	MappedCollection(Iterable<A> sources, Function<? super A, ? extends B> function) {
+		this.sources = sources;
+		this.function = function;
+	}
+
+	@Override
+	public Iterator<B> iterator() {
+		final Iterator<A> iterator = sources.iterator();
+		return new Iterator<B>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public B next() {
+				return function.apply(iterator.next());
+			}
+		};
+	}
+
+	/**
+	 * Return the number of source elements, counted without mapping them when the
+	 * source is not a collection.
+	 */
+	@Override
+	public int size() {
+		if (sources instanceof Collection) {
+			return ((Collection<?>) sources).size();
+		}
+		int size = 0;
+		for (Iterator<A> iterator = sources.iterator(); iterator.hasNext(); iterator.next()) {
+			size++;
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return !sources.iterator().hasNext();
+	}
+
+}
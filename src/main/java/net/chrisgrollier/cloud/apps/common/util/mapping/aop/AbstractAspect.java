@@ -1,5 +1,7 @@
 package net.chrisgrollier.cloud.apps.common.util.mapping.aop;
 
+import java.util.regex.Pattern;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
@@ -26,6 +28,16 @@ import org.aspectj.lang.reflect.CodeSignature;
  */
 public abstract class AbstractAspect<C, B> {
 
+	/** replacement of hidden values */
+	private static final String MASK = "******";
+
+	/**
+	 * default names of sensitive parameters, whose values are masked
+	 * when rendered
+	 */
+	private static final Pattern SENSITIVE_NAMES = Pattern
+			.compile("(?i)password|passwd|pwd|secret|token|credentials?|authorization");
+
 	/**
 	 * Basic strategy method that should be called by actual aspect annotated by
 	 * {@link Around} methods. Calls {@link #doBefore(ProceedingJoinPoint, Object)}
@@ -50,17 +62,17 @@ public abstract class AbstractAspect<C, B> {
 		// call doBefore
 		B aroundContext = this.doBefore(pjp, context);
 		// check time
-		long startTime = System.currentTimeMillis();
+		long startTime = this.currentTime();
 		try {
 			// proceed
 			Object result = pjp.proceed();
 			// call afterReturning
-			this.doAfterReturning(pjp, context, aroundContext, result, startTime, System.currentTimeMillis());
+			this.doAfterReturning(pjp, context, aroundContext, result, startTime, this.currentTime());
 			// return proceed result
 			return result;
 		} catch (Throwable throwable) {
 			// call afterThrowable
-			this.doAfterThrowable(pjp, context, aroundContext, throwable, startTime, System.currentTimeMillis());
+			this.doAfterThrowable(pjp, context, aroundContext, throwable, startTime, this.currentTime());
 			// rethrow
 			throw throwable;
 		} finally {
@@ -68,6 +80,20 @@ public abstract class AbstractAspect<C, B> {
 		}
 	}
 
+	/**
+	 * Clock of the start and end times passed to
+	 * {@link #doAfterReturning(ProceedingJoinPoint, Object, Object, Object, long, long)}
+	 * and
+	 * {@link #doAfterThrowable(ProceedingJoinPoint, Object, Object, Throwable, long, long)}.
+	 * Default implementation returns {@link System#currentTimeMillis()}, subclasses
+	 * measuring short methods may return {@link System#nanoTime()}.
+	 * 
+	 * @return the current time
+	 */
+	protected long currentTime() {
+		return System.currentTimeMillis();
+	}
+
 	/**
 	 * Return the join point signature as a string, using appropriate toString()
 	 * method depending on type arg value.
@@ -117,13 +143,15 @@ public abstract class AbstractAspect<C, B> {
 								subArg == null ? subArg : subArg instanceof Object[] ? ".." : subArg.toString());
 					}
 					builder.append(']');
+				} else if (codeSignature != null && isSensitive(codeSignature.getParameterNames()[count])) {
+					builder.append(MASK);
 				} else {
 					builder.append(object == null ? "null" : object.toString());
 				}
 				count++;
 			}
 		} else {
-			builder.append("******");
+			builder.append(MASK);
 		}
 		return builder.toString();
 	}
@@ -156,11 +184,69 @@ public abstract class AbstractAspect<C, B> {
 				builder.append(result != null ? result.toString() : result);
 			}
 		} else {
-			builder.append("******");
+			builder.append(MASK);
 		}
 		return builder.toString();
 	}
 
+	/**
+	 * Return an object rendering the arguments passed to the
+	 * {@link ProceedingJoinPoint} as {@link #argsToString(ProceedingJoinPoint, boolean)}
+	 * does, but only when its {@link Object#toString()} method is called. Such
+	 * objects may be passed as parameters of log messages, which are only
+	 * formatted when the log level is enabled.
+	 * 
+	 * @param pjp
+	 *            the join point holding args to render
+	 * @param showArgValues
+	 *            indicates if args shoud be rendered or hidden
+	 * @return the lazily rendered arguments
+	 */
+	protected final Object lazyArgs(ProceedingJoinPoint pjp, boolean showArgValues) {
+		return new Object() {
+			@Override
+			public String toString() {
+				return argsToString(pjp, showArgValues);
+			}
+		};
+	}
+
+	/**
+	 * Return an object rendering the result returned by
+	 * {@link ProceedingJoinPoint#proceed()} as
+	 * {@link #resultToString(Object, boolean)} does, but only when its
+	 * {@link Object#toString()} method is called.
+	 * 
+	 * @param result
+	 *            the object returned by {@link ProceedingJoinPoint#proceed()}
+	 * @param showArgValues
+	 *            indicates if the result shoud be rendered or hidden
+	 * @return the lazily rendered result
+	 */
+	protected final Object lazyResult(Object result, boolean showArgValues) {
+		return new Object() {
+			@Override
+			public String toString() {
+				return resultToString(result, showArgValues);
+			}
+		};
+	}
+
+	/**
+	 * Tell whether the value of a parameter must be masked when rendered. Values
+	 * of other parameters and results are rendered by their
+	 * {@link Object#toString()} method, which must thus mask their own sensitive
+	 * fields. Default implementation matches names such as password, secret or
+	 * token, ignoring case.
+	 * 
+	 * @param name
+	 *            the parameter name
+	 * @return <code>true</code> if the value is sensitive
+	 */
+	protected boolean isSensitive(String name) {
+		return SENSITIVE_NAMES.matcher(name).matches();
+	}
+
 	/**
 	 * Abstract method called by
 	 * {@link #simpleAroundStrategy(ProceedingJoinPoint, Object)} before calling
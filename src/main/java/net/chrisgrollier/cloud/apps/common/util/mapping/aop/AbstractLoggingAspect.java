@@ -0,0 +1,97 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping.aop;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Abstract aspect tracing at debug level the calls of adviced methods, their
+ * arguments, results or exceptions and durations, in the logger of the target
+ * class. Subclasses only have to define an {@link Around} advice calling
+ * {@link #trace(ProceedingJoinPoint)}.
+ * <p>
+ * When the debug level is disabled, adviced methods are proceeded right away
+ * and nothing is allocated. Otherwise arguments and results are passed to the
+ * logger as lazily rendered objects, sensitive values being masked.
+ * 
+ * @author Atos
+ *
+ */
+public abstract class AbstractLoggingAspect extends AbstractAspect<Void, Logger> {
+
+	/** loggers of the target classes */
+	private final ClassValue<Logger> loggers = new ClassValue<Logger>() {
+		@Override
+		protected Logger computeValue(Class<?> type) {
+			return LoggerFactory.getLogger(type);
+		}
+	};
+
+	/** whether argument and result values are rendered */
+	private final boolean showArgValues;
+
+	/**
+	 * Create a new logging aspect.
+	 * 
+	 * @param showArgValues
+	 *            indicates if argument and result values should be rendered or
+	 *            hidden
+	 */
+	protected AbstractLoggingAspect(boolean showArgValues) {
+		this.showArgValues = showArgValues;
+	}
+
+	/**
+	 * Proceed the given join point, tracing it if the debug level of the logger
+	 * of its target class is enabled.
+	 * 
+	 * @param pjp
+	 *            {@link Around} AJ advice data
+	 * @return object return by {@link ProceedingJoinPoint#proceed()} method
+	 * @throws Throwable
+	 *             exception eventually thrown by by
+	 *             {@link ProceedingJoinPoint#proceed()} method
+	 */
+	protected Object trace(ProceedingJoinPoint pjp) throws Throwable {
+		final Object target = pjp.getTarget();
+		if (target == null || !loggers.get(target.getClass()).isDebugEnabled()) {
+			return pjp.proceed();
+		}
+		return simpleAroundStrategy(pjp, null);
+	}
+
+	@Override
+	protected long currentTime() {
+		return System.nanoTime();
+	}
+
+	@Override
+	protected Logger doBefore(ProceedingJoinPoint pjp, Void context) {
+		final Logger logger = loggers.get(pjp.getTarget().getClass());
+		logger.debug("> {}({})", pjp.getSignature(), lazyArgs(pjp, showArgValues));
+		return logger;
+	}
+
+	@Override
+	protected void doAfterReturning(ProceedingJoinPoint pjp, Void context, Logger logger, Object result,
+			long startTime, long endTime) {
+		logger.debug("< {} = {} ({} us)", pjp.getSignature(), lazyResult(result, showArgValues),
+				TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
+	}
+
+	@Override
+	protected void doAfterThrowable(ProceedingJoinPoint pjp, Void context, Logger logger, Throwable throwable,
+			long startTime, long endTime) {
+		logger.debug("< {} threw {} ({} us)", pjp.getSignature(), throwable,
+				TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
+	}
+
+	@Override
+	protected void doFinally(ProceedingJoinPoint pjp, Void context, Logger logger) {
+		// nothing to do
+	}
+
+}
@@ -0,0 +1,167 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping.aop;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.reflect.MethodSignature;
+
+/**
+ * Abstract aspect recording the latency of adviced methods in nanoseconds, in
+ * one lock free {@link Recorder} per method whose interval histograms are
+ * accumulated when latencies are read, so that readers neither block writers
+ * nor see a histogram being written. Subclasses only have to define an
+ * {@link Around} advice calling {@link #time(ProceedingJoinPoint)}.
+ * 
+ * @author Atos
+ *
+ */
+public abstract class AbstractTimingAspect extends AbstractAspect<Void, Void> {
+
+	/** number of significant digits of the histograms values */
+	private static final int SIGNIFICANT_DIGITS = 2;
+
+	/** timers of the adviced methods */
+	private final ConcurrentMap<Method, MethodTimer> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * Proceed the given join point, recording its latency.
+	 * 
+	 * @param pjp
+	 *            {@link Around} AJ advice data
+	 * @return object return by {@link ProceedingJoinPoint#proceed()} method
+	 * @throws Throwable
+	 *             exception eventually thrown by by
+	 *             {@link ProceedingJoinPoint#proceed()} method
+	 */
+	protected Object time(ProceedingJoinPoint pjp) throws Throwable {
+		return simpleAroundStrategy(pjp, null);
+	}
+
+	/**
+	 * Return the timers of the methods called so far, indexed by method.
+	 * 
+	 * @return a read only map of timers
+	 */
+	public Map<Method, MethodTimer> getTimers() {
+		return Collections.unmodifiableMap(timers);
+	}
+
+	/**
+	 * Discard all recorded latencies.
+	 */
+	public void reset() {
+		timers.clear();
+	}
+
+	@Override
+	protected long currentTime() {
+		return System.nanoTime();
+	}
+
+	@Override
+	protected Void doBefore(ProceedingJoinPoint pjp, Void context) {
+		return null;
+	}
+
+	@Override
+	protected void doAfterReturning(ProceedingJoinPoint pjp, Void context, Void beforeResult, Object result,
+			long startTime, long endTime) {
+		timer(pjp).record(endTime - startTime);
+	}
+
+	@Override
+	protected void doAfterThrowable(ProceedingJoinPoint pjp, Void context, Void beforeResult, Throwable throwable,
+			long startTime, long endTime) {
+		final MethodTimer timer = timer(pjp);
+		timer.record(endTime - startTime);
+		timer.errors.increment();
+	}
+
+	@Override
+	protected void doFinally(ProceedingJoinPoint pjp, Void context, Void beforeResult) {
+		// nothing to do
+	}
+
+	private MethodTimer timer(ProceedingJoinPoint pjp) {
+		final Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+		final MethodTimer timer = timers.get(method);
+		return timer != null ? timer
+				: timers.computeIfAbsent(method, key -> new MethodTimer(getMethodSignature(pjp, 0)));
+	}
+
+	/**
+	 * Latencies of a method.
+	 */
+	public static class MethodTimer {
+
+		private final String name;
+
+		private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+		/** all latencies recorded until the last read, guarded by this */
+		private final Histogram latencies = new Histogram(SIGNIFICANT_DIGITS);
+
+		/** the interval histogram recycled by the recorder, guarded by this */
+		private Histogram interval;
+
+		private final LongAdder calls = new LongAdder();
+
+		private final LongAdder errors = new LongAdder();
+
+		private final long since = System.nanoTime();
+
+		MethodTimer(String name) {
+			this.name = name;
+		}
+
+		void record(long latency) {
+			recorder.recordValue(latency);
+			calls.increment();
+		}
+
+		/**
+		 * @return the signature of the method
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the number of calls that threw an exception
+		 */
+		public long getErrors() {
+			return errors.sum();
+		}
+
+		/**
+		 * Return a copy of the recorded latencies, in nanoseconds.
+		 * 
+		 * @return a histogram of latencies
+		 */
+		public synchronized Histogram getLatencies() {
+			interval = interval == null ? recorder.getIntervalHistogram() : recorder.getIntervalHistogram(interval);
+			latencies.add(interval);
+			return latencies.copy();
+		}
+
+		/**
+		 * Return the mean number of calls per second since the first call.
+		 * 
+		 * @return the throughput
+		 */
+		public double getThroughput() {
+			final long elapsed = System.nanoTime() - since;
+			return elapsed > 0 ? calls.sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed : 0;
+		}
+	}
+
+}
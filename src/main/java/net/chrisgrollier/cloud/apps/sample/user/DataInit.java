@@ -3,10 +3,25 @@
  */
 package net.chrisgrollier.cloud.apps.sample.user;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
 import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
@@ -14,55 +29,122 @@ import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
 
 
 /**
- * Used to initialise user repository. For this sample,  memory database (H2 database) are used
+ * Seeds the user repository with synthetic users, for capacity testing. Only
+ * enabled when {@code user.seed.enabled} is <code>true</code>.
+ * <p>
+ * {@code user.seed.count} users are generated deterministically from
+ * {@code user.seed.random-seed}: the user of a given index is always the same,
+ * whatever the number of threads. Users are inserted by chunks of
+ * {@code user.seed.chunk-size}, each in its own transaction, by
+ * {@code user.seed.threads} threads. A chunk whose first user already exists
+ * was inserted by a previous run and is skipped, so that restarting seeds
+ * the missing chunks only.
  */
 @Component
+@ConditionalOnProperty(name = "user.seed.enabled", havingValue = "true")
 public class DataInit implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataInit.class);
+
+    private static final String[] FIRST_NAMES = { "Alain", "Pierre", "Stephanie", "Marie", "Nicolas", "Julie", "Thomas", "Camille",
+            "Antoine", "Laura", "Lucas", "Sarah", "Hugo", "Emma", "Louis", "Chloe", "Paul", "Manon", "Jules", "Lea" };
+
+    private static final String[] LAST_NAMES = { "Robert", "Achaichia", "Laroc", "Martin", "Bernard", "Dubois", "Thomas", "Petit",
+            "Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David", "Bertrand", "Roux", "Vincent" };
+
+    private static final String[] STREETS = { "rue des marchands", "avenue des martyres", "rue marc sangnier", "boulevard Voltaire",
+            "rue de la paix", "place de la mairie", "chemin des vignes", "allee des tilleuls" };
+
+    private static final String[] CITIES = { "Paris", "Grenoble", "Talence", "Lyon", "Marseille", "Lille", "Nantes", "Rennes" };
+
+    private static final String[] DOMAINS = { "psa.net", "gmail.com", "example.com", "example.org" };
+
+    private static final String PASSWORD_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
     private final UserDAO userDAO;
 
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${user.seed.count:1000}")
+    private int count;
+
+    @Value("${user.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${user.seed.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${user.seed.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int threads;
+
     @Autowired
-    public DataInit(UserDAO userDAO) {
+    public DataInit(UserDAO userDAO, PlatformTransactionManager transactionManager) {
         this.userDAO = userDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
-        long count = userDAO.count();
-
-        if (count == 0) {
-            final UserEntity user1 = new UserEntity();
-            user1.setFirstName("Alain");
-            user1.setLastName("Robert");
-            user1.setRole(Role.USER);
-            user1.setEmail("alain.robert@psa.net");
-            user1.setAddress("3 rue des marchands, Paris");
-            user1.setUsername("ralain");
-            user1.setPassword("ralain");
-
-            final UserEntity user2 = new UserEntity();
-            user2.setFirstName("Pierre");
-            user2.setLastName("Achaichia");
-            user2.setRole(Role.USER);
-            user2.setEmail("pierre.achaichia@gmail.com");
-           // user2.setAddress("28 avenue des  rue des martyres, Grenoble");
-            user2.setUsername("apierre");
-            user2.setPassword("apierre");
-
-            final UserEntity user3 = new UserEntity();
-            user3.setFirstName("Stephanie");
-            user3.setLastName("Laroc");
-            user3.setRole(Role.ADMIN);
-            user3.setEmail("Stephanie.laroc@psa.net");
-            user3.setAddress("44 rue marc sangnier, Talence");
-            user3.setUsername("lstephanie");
-            user3.setPassword("lstephanie");
-            
-
-            userDAO.save(user1);
-            userDAO.save(user2);
-            userDAO.save(user3);
+        final long start = System.nanoTime();
+        final AtomicLong inserted = new AtomicLong();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < count; from += chunkSize) {
+                final int chunkFrom = from;
+                final int chunkTo = Math.min(count, from + chunkSize);
+                chunks.add(executor.submit(() -> inserted.addAndGet(seedChunk(chunkFrom, chunkTo))));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.info("Seeded {} users out of {} in {} ms ({} rows/s)", inserted.get(), count, elapsed, inserted.get() * 1000 / elapsed);
+    }
+
+    /**
+     * Insert the users of the given index range in one transaction, unless they
+     * were inserted by a previous run.
+     * 
+     * @return the number of inserted users
+     */
+    private int seedChunk(final int from, final int to) {
+        if (userDAO.existsUserByUsername(user(from).getUsername())) {
+            return 0;
+        }
+        final List<UserEntity> users = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            users.add(user(i));
         }
+        transactionTemplate.execute(status -> userDAO.saveAll(users));
+        return users.size();
+    }
 
+    /**
+     * Generate the user of the given index.
+     */
+    private UserEntity user(final int index) {
+        final SplittableRandom random = new SplittableRandom(randomSeed * 0x9E3779B97F4A7C15L + index);
+        final String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        final String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        final UserEntity user = new UserEntity();
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setRole(random.nextInt(20) == 0 ? Role.ADMIN : Role.USER);
+        // the index makes usernames and emails unique
+        user.setUsername((firstName.charAt(0) + lastName).toLowerCase() + index);
+        user.setEmail((firstName + '.' + lastName).toLowerCase() + index + '@' + DOMAINS[random.nextInt(DOMAINS.length)]);
+        user.setAddress((1 + random.nextInt(200)) + " " + STREETS[random.nextInt(STREETS.length)] + ", "
+                + CITIES[random.nextInt(CITIES.length)]);
+        final StringBuilder password = new StringBuilder(12);
+        for (int i = 0; i < 12; i++) {
+            password.append(PASSWORD_CHARS.charAt(random.nextInt(PASSWORD_CHARS.length())));
+        }
+        user.setPassword(password.toString());
+        return user;
     }
 
 }
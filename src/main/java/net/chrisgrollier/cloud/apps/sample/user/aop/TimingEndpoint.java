@@ -0,0 +1,62 @@
+package net.chrisgrollier.cloud.apps.sample.user.aop;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import net.chrisgrollier.cloud.apps.common.util.mapping.aop.AbstractTimingAspect.MethodTimer;
+
+/**
+ * Actuator endpoint reporting, for each method timed by the
+ * {@link UserTimingAspect}, its number of calls and errors, its throughput in
+ * calls per second and its latency percentiles in microseconds. A delete
+ * operation discards the recorded latencies.
+ */
+@Component
+@ConditionalOnProperty(name = "user.timing.enabled", havingValue = "true")
+@Endpoint(id = "timings")
+public class TimingEndpoint {
+
+	private final UserTimingAspect timingAspect;
+
+	@Autowired
+	public TimingEndpoint(UserTimingAspect timingAspect) {
+		this.timingAspect = timingAspect;
+	}
+
+	@ReadOperation
+	public Map<String, Object> timings() {
+		final Map<String, Object> timings = new TreeMap<>();
+		for (MethodTimer timer : timingAspect.getTimers().values()) {
+			final Histogram latencies = timer.getLatencies();
+			final Map<String, Object> timing = new LinkedHashMap<>();
+			timing.put("count", latencies.getTotalCount());
+			timing.put("errors", timer.getErrors());
+			timing.put("throughput", timer.getThroughput());
+			timing.put("p50", micros(latencies.getValueAtPercentile(50)));
+			timing.put("p99", micros(latencies.getValueAtPercentile(99)));
+			timing.put("p999", micros(latencies.getValueAtPercentile(99.9)));
+			timing.put("max", micros(latencies.getMaxValue()));
+			timings.put(timer.getName(), timing);
+		}
+		return timings;
+	}
+
+	@DeleteOperation
+	public void reset() {
+		timingAspect.reset();
+	}
+
+	private static double micros(long nanos) {
+		return nanos / 1000d;
+	}
+
+}
@@ -0,0 +1,45 @@
+package net.chrisgrollier.cloud.apps.sample.user.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import net.chrisgrollier.cloud.apps.common.util.mapping.aop.AbstractLoggingAspect;
+
+/**
+ * Traces the calls of the public methods of the controller and service layers
+ * when the debug level of their loggers is enabled, argument values being
+ * rendered unless {@code user.trace.show-values} is <code>false</code>.
+ * Password parameters are masked, as is the password of users rendered by
+ * their {@code toString()} method. The aspect is only applied when
+ * {@code user.trace.enabled} is <code>true</code>.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "user.trace.enabled", havingValue = "true")
+public class UserLoggingAspect extends AbstractLoggingAspect {
+
+	public UserLoggingAspect(@Value("${user.trace.show-values:true}") boolean showValues) {
+		super(showValues);
+	}
+
+	@Pointcut("within(net.chrisgrollier.cloud.apps.sample.user.controller..*) && execution(public * *(..))")
+	public void controller() {
+		// pointcut
+	}
+
+	@Pointcut("within(net.chrisgrollier.cloud.apps.sample.user.service..*) && execution(public * *(..))")
+	public void service() {
+		// pointcut
+	}
+
+	@Around("controller() || service()")
+	public Object around(ProceedingJoinPoint pjp) throws Throwable {
+		return trace(pjp);
+	}
+
+}
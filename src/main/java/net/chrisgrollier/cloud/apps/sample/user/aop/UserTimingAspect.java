@@ -0,0 +1,52 @@
+package net.chrisgrollier.cloud.apps.sample.user.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import net.chrisgrollier.cloud.apps.common.util.mapping.aop.AbstractTimingAspect;
+
+/**
+ * Records the latency of the public methods of the controller, service, dao
+ * and mapping layers, enabled by setting {@code user.timing.enabled} to
+ * <code>true</code>. Latencies are reported by the {@link TimingEndpoint}.
+ * <p>
+ * Pointcuts are evaluated against the class declaring the executed method:
+ * mappers are thus matched by type, {@code within} alone missing the methods
+ * they inherit from {@code AbstractBidiMapper}, and repositories by their
+ * interface, their implementation being a Spring Data class.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "user.timing.enabled", havingValue = "true")
+public class UserTimingAspect extends AbstractTimingAspect {
+
+	@Pointcut("within(net.chrisgrollier.cloud.apps.sample.user.controller..*) && execution(public * *(..))")
+	public void controller() {
+		// pointcut
+	}
+
+	@Pointcut("within(net.chrisgrollier.cloud.apps.sample.user.service..*) && execution(public * *(..))")
+	public void service() {
+		// pointcut
+	}
+
+	@Pointcut("this(net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO)")
+	public void dao() {
+		// pointcut
+	}
+
+	@Pointcut("target(net.chrisgrollier.cloud.apps.common.util.mapping.BidiMapper) && execution(public * *(..))")
+	public void mapping() {
+		// pointcut
+	}
+
+	@Around("controller() || service() || dao() || mapping()")
+	public Object around(ProceedingJoinPoint pjp) throws Throwable {
+		return time(pjp);
+	}
+
+}
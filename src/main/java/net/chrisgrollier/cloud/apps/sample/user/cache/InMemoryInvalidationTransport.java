@@ -0,0 +1,36 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link UserInvalidationTransport} delivering messages synchronously to the
+ * subscribers of the same instance. Meant to stand in for a real transport in
+ * tests, several {@link UserInvalidationBus} sharing one instance acting as
+ * several nodes.
+ */
+public class InMemoryInvalidationTransport implements UserInvalidationTransport {
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	@Override
+	public int getMaxPayloadSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void publish(String payload) {
+		subscribers.forEach(subscriber -> subscriber.onMessage(payload));
+	}
+
+	@Override
+	public void subscribe(Subscriber subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	@Override
+	public void close() {
+		subscribers.clear();
+	}
+
+}
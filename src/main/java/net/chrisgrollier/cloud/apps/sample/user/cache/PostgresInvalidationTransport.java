@@ -0,0 +1,136 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.chrisgrollier.cloud.apps.common.exception.TechnicalException;
+
+/**
+ * A {@link UserInvalidationTransport} based on postgres LISTEN/NOTIFY. Messages
+ * are sent with {@code pg_notify} and received by a daemon thread holding a
+ * dedicated connection that listens to the channel and polls notifications.
+ * When this connection is lost, subscribers are told that messages may have
+ * been lost and the thread listens again on a new connection.
+ */
+public class PostgresInvalidationTransport implements UserInvalidationTransport {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+
+	/** NOTIFY payloads must be shorter than 8000 bytes */
+	private static final int MAX_PAYLOAD_SIZE = 7900;
+
+	private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+
+	private final DataSource dataSource;
+
+	private final String channel;
+
+	private final long pollInterval;
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	private final Thread listener;
+
+	private volatile boolean running = true;
+
+	/**
+	 * Create a new instance and start listening to the given channel.
+	 * 
+	 * @param dataSource   the postgres data source
+	 * @param channel      the channel name, a lower case postgres identifier
+	 * @param pollInterval the interval between notifications polls, in
+	 *                     milliseconds
+	 */
+	public PostgresInvalidationTransport(DataSource dataSource, String channel, long pollInterval) {
+		if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+			throw new IllegalArgumentException("Invalid channel name " + channel);
+		}
+		this.dataSource = dataSource;
+		this.channel = channel;
+		this.pollInterval = pollInterval;
+		this.listener = new Thread(this::listen, "user-invalidation-listener");
+		this.listener.setDaemon(true);
+		this.listener.start();
+	}
+
+	@Override
+	public int getMaxPayloadSize() {
+		return MAX_PAYLOAD_SIZE;
+	}
+
+	@Override
+	public void publish(String payload) {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("select pg_notify(?, ?)")) {
+			statement.setString(1, channel);
+			statement.setString(2, payload);
+			statement.execute();
+		} catch (SQLException e) {
+			throw new TechnicalException("Unable to notify channel " + channel, e);
+		}
+	}
+
+	@Override
+	public void subscribe(Subscriber subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		listener.interrupt();
+	}
+
+	private void listen() {
+		boolean listenedBefore = false;
+		while (running) {
+			try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+				statement.execute("LISTEN " + channel);
+				if (listenedBefore) {
+					subscribers.forEach(Subscriber::onMessagesLost);
+				}
+				listenedBefore = true;
+				final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				while (running) {
+					// notifications are only received along with query results
+					statement.execute("select 1");
+					final PGNotification[] notifications = pgConnection.getNotifications();
+					if (notifications != null) {
+						for (PGNotification notification : notifications) {
+							subscribers.forEach(subscriber -> subscriber.onMessage(notification.getParameter()));
+						}
+					}
+					Thread.sleep(pollInterval);
+				}
+			} catch (SQLException | RuntimeException e) {
+				LOGGER.warn("Lost listening connection to channel {}, retrying in {} ms", channel, pollInterval, e);
+				sleep();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void sleep() {
+		try {
+			Thread.sleep(pollInterval);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserChangedEvent;
+
+/**
+ * A bounded, size and time evicting, in-process cache of users, indexed by
+ * identifier and by username. Users are held by the identifier index only, the
+ * username index mapping usernames to identifiers: a username entry is thus
+ * only used if the user it points to still has that username, so that a stale
+ * username entry can not return a wrong user.
+ * <p>
+ * Entries are evicted once the transaction that changed a user is committed
+ * (see {@link UserChangedEvent}). Since a lookup may have read a user from the
+ * database before such a commit and try to cache it after the eviction, every
+ * eviction increments a generation counter, and a lookup that saw the
+ * generation change while loading does not keep the user it loaded.
+ * <p>
+ * A lookup that starts after such an eviction may still read a stale user from
+ * a read replica that did not catch up with the change yet. Users changed
+ * during the last {@code user.cache.recent-change-window}, which defaults to
+ * the read your writes window, are thus not cached at all.
+ * <p>
+ * Cached users are shared between callers and must not be modified.
+ * Hit/miss/eviction metrics are published under the {@code cache.*} meters,
+ * tagged with {@code cache=users.by.id} and {@code cache=users.by.username}.
+ */
+@Component
+public class UserCache {
+
+	private final Cache<Integer, User> usersById;
+
+	private final Cache<String, Integer> idsByUsername;
+
+	private final AtomicLong generation = new AtomicLong();
+
+	/** identifiers and usernames of recently changed users, or null if none are kept */
+	private final Cache<Object, Boolean> recentChanges;
+
+	@Autowired
+	public UserCache(MeterRegistry meterRegistry, @Value("${user.cache.maximum-size:10000}") long maximumSize,
+			@Value("${user.cache.expire-after-write:5m}") Duration expireAfterWrite,
+			@Value("${user.cache.recent-change-window:${user.datasource.read-your-writes.window:5s}}") Duration recentChangeWindow) {
+		this.usersById = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite)
+				.recordStats().build();
+		this.idsByUsername = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite)
+				.recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.by.id");
+		CaffeineCacheMetrics.monitor(meterRegistry, idsByUsername, "users.by.username");
+		this.recentChanges = recentChangeWindow.isZero() ? null
+				: Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(recentChangeWindow).build();
+	}
+
+	/**
+	 * Return the cached user with the given identifier, if any.
+	 * 
+	 * @param id the user identifier
+	 * @return the cached user, or <code>null</code>
+	 */
+	public User getIfPresent(Integer id) {
+		return usersById.getIfPresent(id);
+	}
+
+	/**
+	 * Return the cached user with the given username, if any.
+	 * 
+	 * @param username the user username
+	 * @return the cached user, or <code>null</code>
+	 */
+	public User getIfPresent(String username) {
+		final Integer id = idsByUsername.getIfPresent(username);
+		if (id != null) {
+			final User cached = usersById.getIfPresent(id);
+			if (cached != null && username.equals(cached.getUsername())) {
+				return cached;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the user with the given identifier, loading it with the given loader
+	 * if it is not cached.
+	 * 
+	 * @param id     the user identifier
+	 * @param loader the function loading the user from its identifier, which
+	 *               should throw an exception if the user does not exist
+	 * @return the user with the given identifier
+	 */
+	public User get(Integer id, Function<Integer, User> loader) {
+		final User cached = getIfPresent(id);
+		if (cached != null) {
+			return cached;
+		}
+		final long loadGeneration = generation.get();
+		final User user = loader.apply(id);
+		put(user, loadGeneration);
+		return user;
+	}
+
+	/**
+	 * Return the user with the given username, loading it with the given loader
+	 * if it is not cached.
+	 * 
+	 * @param username the user username
+	 * @param loader   the function loading the user from its username, which
+	 *                 should throw an exception if the user does not exist
+	 * @return the user with the given username
+	 */
+	public User get(String username, Function<String, User> loader) {
+		final User cached = getIfPresent(username);
+		if (cached != null) {
+			return cached;
+		}
+		final long loadGeneration = generation.get();
+		final User user = loader.apply(username);
+		put(user, loadGeneration);
+		return user;
+	}
+
+	/**
+	 * Evict a user from both indexes.
+	 * 
+	 * @param id        the user identifier
+	 * @param usernames the usernames the user is known by
+	 */
+	public void evict(Integer id, Collection<String> usernames) {
+		generation.incrementAndGet();
+		if (recentChanges != null) {
+			if (id != null) {
+				recentChanges.put(id, Boolean.TRUE);
+			}
+			usernames.forEach(username -> recentChanges.put(username, Boolean.TRUE));
+		}
+		if (id != null) {
+			usersById.invalidate(id);
+		}
+		idsByUsername.invalidateAll(usernames);
+	}
+
+	/**
+	 * Evict all cached users.
+	 */
+	public void evictAll() {
+		generation.incrementAndGet();
+		usersById.invalidateAll();
+		idsByUsername.invalidateAll();
+	}
+
+	/**
+	 * Evict the changed user once the change is committed.
+	 * 
+	 * @param event the user change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onUserChanged(UserChangedEvent event) {
+		this.evict(event.getId(), event.getUsernames());
+	}
+
+	private void put(User user, long loadGeneration) {
+		if (recentChanges != null && (recentChanges.getIfPresent(user.getId()) != null
+				|| recentChanges.getIfPresent(user.getUsername()) != null)) {
+			// possibly read from a replica that did not catch up with the change
+			return;
+		}
+		usersById.put(user.getId(), user);
+		idsByUsername.put(user.getUsername(), user.getId());
+		if (generation.get() != loadGeneration) {
+			// a user changed while loading, what was loaded may be stale
+			usersById.invalidate(user.getId());
+			idsByUsername.invalidate(user.getUsername());
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.chrisgrollier.cloud.apps.sample.user.service.UserChangedEvent;
+
+/**
+ * Broadcasts user changes to all msa-users nodes so that each of them evicts
+ * the changed users from its {@link UserCache}. Committed changes are not sent
+ * one by one: they are collected and coalesced by user identifier, then sent
+ * every flush interval in as few messages as the transport allows. Messages
+ * sent by this node are ignored when received back, since the local cache
+ * already evicted its entries. Changes that could not be sent are kept pending
+ * and sent again at next flush.
+ * <p>
+ * Usernames of the users changed by other nodes are also added to the
+ * {@link UsernameFilter}, so that it knows every used username.
+ */
+public class UserInvalidationBus implements UserInvalidationTransport.Subscriber, DisposableBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserInvalidationBus.class);
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final UserInvalidationTransport transport;
+
+	private final UserCache userCache;
+
+	private final UsernameFilter usernameFilter;
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * pending changes: usernames by user identifier, whose sets are replaced
+	 * rather than modified so that a flush can not miss added usernames
+	 */
+	private final Map<Integer, Set<String>> pending = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Create a new bus, subscribe it to the given transport and start flushing
+	 * pending changes.
+	 * 
+	 * @param transport      the transport
+	 * @param userCache      the local cache
+	 * @param usernameFilter the local username filter
+	 * @param objectMapper   the mapper used to encode messages
+	 * @param flushInterval  the interval between two flushes, in milliseconds
+	 */
+	public UserInvalidationBus(UserInvalidationTransport transport, UserCache userCache,
+			UsernameFilter usernameFilter, ObjectMapper objectMapper, long flushInterval) {
+		this.transport = transport;
+		this.userCache = userCache;
+		this.usernameFilter = usernameFilter;
+		this.objectMapper = objectMapper;
+		this.transport.subscribe(this);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "user-invalidation-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Collect a committed user change, to be sent at next flush.
+	 * 
+	 * @param event the user change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onUserChanged(UserChangedEvent event) {
+		enqueue(event.getId(), event.getUsernames());
+	}
+
+	/**
+	 * Send all pending changes.
+	 */
+	public void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		final List<Change> changes = new ArrayList<>(pending.size());
+		for (Integer id : pending.keySet()) {
+			final Set<String> usernames = pending.remove(id);
+			if (usernames != null) {
+				changes.add(new Change(id, usernames));
+			}
+		}
+		try {
+			send(changes);
+		} catch (JsonProcessingException e) {
+			LOGGER.warn("Unable to encode {} user changes", changes.size(), e);
+		}
+	}
+
+	private void send(List<Change> changes) throws JsonProcessingException {
+		final String payload = objectMapper.writeValueAsString(new Message(nodeId, changes));
+		if (changes.size() > 1 && payload.getBytes(StandardCharsets.UTF_8).length > transport.getMaxPayloadSize()) {
+			send(changes.subList(0, changes.size() / 2));
+			send(changes.subList(changes.size() / 2, changes.size()));
+		} else {
+			try {
+				transport.publish(payload);
+			} catch (RuntimeException e) {
+				LOGGER.warn("Unable to send {} user changes, retrying at next flush", changes.size(), e);
+				changes.forEach(change -> enqueue(change.getId(), change.getUsernames()));
+			}
+		}
+	}
+
+	/**
+	 * Add a change to the pending ones, merged with any pending change of the
+	 * same user.
+	 */
+	private void enqueue(Integer id, Collection<String> usernames) {
+		pending.merge(id, new HashSet<>(usernames), (pendingUsernames, addedUsernames) -> {
+			final Set<String> merged = new HashSet<>(pendingUsernames);
+			merged.addAll(addedUsernames);
+			return merged;
+		});
+	}
+
+	@Override
+	public void onMessage(String payload) {
+		try {
+			final Message message = objectMapper.readValue(payload, Message.class);
+			if (!nodeId.equals(message.getNode())) {
+				message.getChanges().forEach(change -> {
+					userCache.evict(change.getId(), change.getUsernames());
+					usernameFilter.add(change.getUsernames());
+				});
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Unable to read user changes {}, evicting all cached users", payload, e);
+			userCache.evictAll();
+			usernameFilter.onRemoteChangesLost();
+		}
+	}
+
+	@Override
+	public void onMessagesLost() {
+		LOGGER.warn("User changes may have been lost, evicting all cached users");
+		userCache.evictAll();
+		usernameFilter.onRemoteChangesLost();
+	}
+
+	@Override
+	public void destroy() {
+		scheduler.shutdown();
+		flush();
+	}
+
+	/**
+	 * A message sent on the bus.
+	 */
+	public static class Message {
+
+		private String node;
+
+		private List<Change> changes;
+
+		public Message() {
+			super();
+		}
+
+		public Message(String node, List<Change> changes) {
+			this.node = node;
+			this.changes = changes;
+		}
+
+		public String getNode() {
+			return node;
+		}
+
+		public void setNode(String node) {
+			this.node = node;
+		}
+
+		public List<Change> getChanges() {
+			return changes;
+		}
+
+		public void setChanges(List<Change> changes) {
+			this.changes = changes;
+		}
+	}
+
+	/**
+	 * A changed user in a {@link Message}.
+	 */
+	public static class Change {
+
+		private Integer id;
+
+		private Collection<String> usernames;
+
+		public Change() {
+			super();
+		}
+
+		public Change(Integer id, Collection<String> usernames) {
+			this.id = id;
+			this.usernames = usernames;
+		}
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public Collection<String> getUsernames() {
+			return usernames;
+		}
+
+		public void setUsernames(Collection<String> usernames) {
+			this.usernames = usernames;
+		}
+	}
+
+}
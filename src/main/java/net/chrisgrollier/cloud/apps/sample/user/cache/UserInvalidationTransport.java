@@ -0,0 +1,55 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+/**
+ * Transport used by {@link UserInvalidationBus} to broadcast user cache
+ * invalidation messages to all msa-users nodes, including the sending one.
+ */
+public interface UserInvalidationTransport extends AutoCloseable {
+
+	/**
+	 * Return the maximum size, in bytes, of a message payload.
+	 * 
+	 * @return the maximum size of a message payload
+	 */
+	int getMaxPayloadSize();
+
+	/**
+	 * Broadcast a message to all subscribers of all nodes.
+	 * 
+	 * @param payload the message payload
+	 * @throws RuntimeException if the message could not be sent
+	 */
+	void publish(String payload);
+
+	/**
+	 * Register a subscriber receiving all broadcast messages.
+	 * 
+	 * @param subscriber the subscriber
+	 */
+	void subscribe(Subscriber subscriber);
+
+	/**
+	 * Stop receiving messages and release underlying resources.
+	 */
+	@Override
+	void close();
+
+	/**
+	 * A receiver of broadcast messages.
+	 */
+	interface Subscriber {
+
+		/**
+		 * Called for each received message.
+		 * 
+		 * @param payload the message payload
+		 */
+		void onMessage(String payload);
+
+		/**
+		 * Called when messages may have been lost, for instance after the transport
+		 * lost its connection.
+		 */
+		void onMessagesLost();
+	}
+}
@@ -0,0 +1,288 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.chrisgrollier.cloud.apps.common.datasource.ReadWriteRoutingDataSource;
+import net.chrisgrollier.cloud.apps.common.util.filter.BloomFilter;
+import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserChangedEvent;
+
+/**
+ * A {@link BloomFilter} of all usernames, telling for sure that a username is
+ * not used so that such lookups do not have to reach the database. It is built
+ * once the application is ready from a streamed scan of all usernames, then
+ * kept up to date with added and updated users, those of other nodes being
+ * received from the {@link UserInvalidationBus}. Until it is built, every
+ * username is reported as possibly used.
+ * <p>
+ * Since usernames added by other nodes are only known through the bus, the
+ * filter is only used when {@code user.cache.invalidation.transport} is set, or
+ * when {@code user.username-filter.single-node} tells that the service runs on
+ * a single node. Otherwise every username is looked up in database. When the
+ * bus may have lost messages, the filter is dropped and rebuilt.
+ * <p>
+ * Changed usernames are added once committed, and while a new filter is built
+ * they are added to both filters, so that a username committed after the
+ * start of the scan is not missed. The scan reads the primary database, since
+ * a replica may not have caught up with the latest commits.
+ * <p>
+ * Usernames of deleted or renamed users stay in the filter, which can only
+ * raise the false positive rate: the measured rate is thus tracked and the
+ * filter may be rebuilt through the {@link UsernameFilterEndpoint}.
+ */
+@Component
+public class UsernameFilter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UsernameFilter.class);
+
+	private final UserDAO userDAO;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final long expectedInsertions;
+
+	private final double fpp;
+
+	/** whether usernames added by any node are known to the filter */
+	private final boolean enabled;
+
+	/** guards the publication of filters and additions to them */
+	private final Object lock = new Object();
+
+	/** the filter used for lookups */
+	private volatile BloomFilter filter;
+
+	/** the filter being built, if any, also fed with changed users */
+	private BloomFilter building;
+
+	/** whether changes may have been lost since the build started */
+	private boolean buildStale;
+
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+	private final LongAdder definiteNegatives = new LongAdder();
+
+	private final LongAdder truePositives = new LongAdder();
+
+	private final LongAdder falsePositives = new LongAdder();
+
+	@Autowired
+	public UsernameFilter(UserDAO userDAO, PlatformTransactionManager transactionManager,
+			@Value("${user.username-filter.expected-insertions:1000000}") long expectedInsertions,
+			@Value("${user.username-filter.false-positive-probability:0.01}") double fpp,
+			@Value("${user.cache.invalidation.transport:}") String invalidationTransport,
+			@Value("${user.username-filter.single-node:false}") boolean singleNode) {
+		this.userDAO = userDAO;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.expectedInsertions = expectedInsertions;
+		this.fpp = fpp;
+		this.enabled = singleNode || !invalidationTransport.isEmpty();
+	}
+
+	/**
+	 * Tell whether the given username might be used.
+	 * 
+	 * @param username the username
+	 * @return <code>false</code> if the username is definitely not used,
+	 *         <code>true</code> if it might be used or if the filter is not built
+	 */
+	public boolean mightExist(String username) {
+		final BloomFilter current = filter;
+		if (current == null || current.mightContain(username)) {
+			return true;
+		}
+		definiteNegatives.increment();
+		return false;
+	}
+
+	/**
+	 * Record the outcome of a database lookup made because
+	 * {@link #mightExist(String)} returned <code>true</code>, to measure the
+	 * false positive rate.
+	 * 
+	 * @param exists whether the username was actually found
+	 */
+	public void recordLookup(boolean exists) {
+		if (filter != null) {
+			(exists ? truePositives : falsePositives).increment();
+		}
+	}
+
+	/**
+	 * Add the usernames of a changed user.
+	 * 
+	 * @param event the user change
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onUserChanged(UserChangedEvent event) {
+		add(event.getUsernames());
+	}
+
+	/**
+	 * Add usernames, for instance those of users changed by another node.
+	 * 
+	 * @param usernames the usernames
+	 */
+	public void add(Collection<String> usernames) {
+		synchronized (lock) {
+			final BloomFilter current = filter;
+			final BloomFilter next = building;
+			usernames.forEach(username -> {
+				if (current != null) {
+					current.put(username);
+				}
+				if (next != null) {
+					next.put(username);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Build the filter in background once the application is ready.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		if (!enabled) {
+			LOGGER.info("Username filter disabled, neither an invalidation transport nor a single node is configured");
+			return;
+		}
+		rebuildInBackground();
+	}
+
+	/**
+	 * Stop using the filter, which may miss usernames added by other nodes, and
+	 * build it again in background.
+	 */
+	public void onRemoteChangesLost() {
+		if (!enabled) {
+			return;
+		}
+		synchronized (lock) {
+			filter = null;
+			buildStale = true;
+		}
+		// does nothing if a build is running, which then starts over
+		rebuildInBackground();
+	}
+
+	private void rebuildInBackground() {
+		final Thread builder = new Thread(this::rebuild, "username-filter-builder");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	/**
+	 * Build a new filter from all usernames, then use it for lookups. Does
+	 * nothing if the filter is disabled or already being built.
+	 * 
+	 * @return <code>true</code> if the filter was rebuilt
+	 */
+	public boolean rebuild() {
+		if (!enabled || !rebuilding.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			final long start = System.currentTimeMillis();
+			final AtomicLong count = new AtomicLong();
+			BloomFilter next;
+			boolean published;
+			do {
+				next = new BloomFilter(expectedInsertions, fpp);
+				synchronized (lock) {
+					building = next;
+					buildStale = false;
+				}
+				count.set(0);
+				final BloomFilter scanned = next;
+				ReadWriteRoutingDataSource.onPrimary(() -> transactionTemplate.execute(status -> {
+					try (Stream<String> usernames = userDAO.streamAllUsernames()) {
+						usernames.forEach(username -> {
+							scanned.put(username);
+							count.incrementAndGet();
+						});
+					}
+					return null;
+				}));
+				synchronized (lock) {
+					building = null;
+					published = !buildStale;
+					if (published) {
+						filter = next;
+					}
+				}
+			} while (!published);
+			definiteNegatives.reset();
+			truePositives.reset();
+			falsePositives.reset();
+			LOGGER.info("Username filter built from {} usernames in {} ms, fill ratio {}", count,
+					System.currentTimeMillis() - start, next.getFillRatio());
+			return true;
+		} finally {
+			synchronized (lock) {
+				building = null;
+			}
+			rebuilding.set(false);
+			// changes lost after the publication could not start their own build
+			final boolean stale;
+			synchronized (lock) {
+				stale = buildStale;
+			}
+			if (stale) {
+				rebuildInBackground();
+			}
+		}
+	}
+
+	/**
+	 * Return the filter used for lookups, if built.
+	 * 
+	 * @return the filter used for lookups, or <code>null</code>
+	 */
+	public BloomFilter getFilter() {
+		return filter;
+	}
+
+	public long getDefiniteNegatives() {
+		return definiteNegatives.sum();
+	}
+
+	public long getTruePositives() {
+		return truePositives.sum();
+	}
+
+	public long getFalsePositives() {
+		return falsePositives.sum();
+	}
+
+	/**
+	 * Return the measured false positive rate, that is the ratio of lookups of
+	 * unused usernames that were not filtered out.
+	 * 
+	 * @return the measured false positive rate, or 0 if no unused username was
+	 *         looked up
+	 */
+	public double getMeasuredFalsePositiveRate() {
+		final long falsePositiveCount = falsePositives.sum();
+		final long negatives = falsePositiveCount + definiteNegatives.sum();
+		return negatives == 0 ? 0 : (double) falsePositiveCount / negatives;
+	}
+
+}
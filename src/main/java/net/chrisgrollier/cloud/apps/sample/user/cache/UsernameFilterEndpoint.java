@@ -0,0 +1,54 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import net.chrisgrollier.cloud.apps.common.util.filter.BloomFilter;
+
+/**
+ * Actuator endpoint reporting the state of the {@link UsernameFilter}: its fill
+ * ratio, its expected and measured false positive rates, and lookup counters.
+ * A write operation rebuilds the filter.
+ */
+@Component
+@Endpoint(id = "usernamefilter")
+public class UsernameFilterEndpoint {
+
+	private final UsernameFilter usernameFilter;
+
+	@Autowired
+	public UsernameFilterEndpoint(UsernameFilter usernameFilter) {
+		this.usernameFilter = usernameFilter;
+	}
+
+	@ReadOperation
+	public Map<String, Object> state() {
+		final BloomFilter filter = usernameFilter.getFilter();
+		final Map<String, Object> state = new LinkedHashMap<>();
+		state.put("ready", filter != null);
+		if (filter != null) {
+			state.put("bitSize", filter.getBitSize());
+			state.put("hashFunctions", filter.getHashFunctions());
+			state.put("fillRatio", filter.getFillRatio());
+			state.put("expectedFalsePositiveRate", filter.getExpectedFpp());
+		}
+		state.put("definiteNegatives", usernameFilter.getDefiniteNegatives());
+		state.put("truePositives", usernameFilter.getTruePositives());
+		state.put("falsePositives", usernameFilter.getFalsePositives());
+		state.put("measuredFalsePositiveRate", usernameFilter.getMeasuredFalsePositiveRate());
+		return state;
+	}
+
+	@WriteOperation
+	public Map<String, Object> rebuild() {
+		usernameFilter.rebuild();
+		return state();
+	}
+
+}
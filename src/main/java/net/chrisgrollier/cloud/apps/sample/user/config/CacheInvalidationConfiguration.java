@@ -0,0 +1,49 @@
+package net.chrisgrollier.cloud.apps.sample.user.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.chrisgrollier.cloud.apps.sample.user.cache.InMemoryInvalidationTransport;
+import net.chrisgrollier.cloud.apps.sample.user.cache.PostgresInvalidationTransport;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UserCache;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UserInvalidationBus;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UserInvalidationTransport;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UsernameFilter;
+
+/**
+ * Cross nodes user cache invalidation configuration, enabled by setting
+ * {@code user.cache.invalidation.transport} to {@code postgres} (LISTEN/NOTIFY
+ * on the users database) or {@code memory} (single node, for testing purpose).
+ */
+@Configuration
+@ConditionalOnProperty("user.cache.invalidation.transport")
+public class CacheInvalidationConfiguration {
+
+	@Bean
+	@ConditionalOnProperty(name = "user.cache.invalidation.transport", havingValue = "postgres")
+	public UserInvalidationTransport postgresInvalidationTransport(DataSource dataSource,
+			@Value("${user.cache.invalidation.channel:user_changes}") String channel,
+			@Value("${user.cache.invalidation.poll-interval:500}") long pollInterval) {
+		return new PostgresInvalidationTransport(dataSource, channel, pollInterval);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "user.cache.invalidation.transport", havingValue = "memory")
+	public UserInvalidationTransport inMemoryInvalidationTransport() {
+		return new InMemoryInvalidationTransport();
+	}
+
+	@Bean
+	public UserInvalidationBus userInvalidationBus(UserInvalidationTransport transport, UserCache userCache,
+			UsernameFilter usernameFilter, ObjectMapper objectMapper,
+			@Value("${user.cache.invalidation.flush-interval:100}") long flushInterval) {
+		return new UserInvalidationBus(transport, userCache, usernameFilter, objectMapper, flushInterval);
+	}
+
+}
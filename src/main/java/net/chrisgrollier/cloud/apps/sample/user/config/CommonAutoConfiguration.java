@@ -1,28 +1,38 @@
 package net.chrisgrollier.cloud.apps.sample.user.config;
 
+import java.util.Locale;
+
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 
 import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
-import net.chrisgrollier.cloud.apps.common.internal.i18n.DefaultMessageManager;
+import net.chrisgrollier.cloud.apps.common.internal.i18n.CachingMessageManager;
 
 /**
  * Auto configuration class responsible to create a
- * {@link DefaultMessageManager} beans if not present in the application
- * context. 
+ * {@link CachingMessageManager} beans if not present in the application
+ * context. Messages are cached for the {@code user.i18n.supported-locales}
+ * locales, those of the bundled messages by default.
  */
 @Configuration
 public class CommonAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
-	public MessageManager messageManager(MessageSource messageSource) {
+	public MessageManager messageManager(MessageSource messageSource,
+			@Value("${user.i18n.supported-locales:en,fr,es}") String[] supportedLocales) {
 		LoggerFactory.getLogger(CommonAutoConfiguration.class).info("autoConfService",
-				"instanciating DefaultMessageManager");
-		return new DefaultMessageManager(messageSource);
+				"instanciating CachingMessageManager");
+		final Locale[] locales = new Locale[supportedLocales.length];
+		for (int i = 0; i < locales.length; i++) {
+			locales[i] = StringUtils.parseLocale(supportedLocales[i].trim());
+		}
+		return new CachingMessageManager(messageSource, locales);
 	}
 
 }
@@ -0,0 +1,31 @@
+package net.chrisgrollier.cloud.apps.sample.user.config;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+import net.chrisgrollier.cloud.apps.common.exception.StackTracePolicy;
+
+/**
+ * Functional exceptions configuration, enabled by setting
+ * {@code user.exception.stack-trace} to {@code always}, {@code never} or
+ * {@code sampled}, in which case {@code user.exception.sample-rate} of the
+ * exceptions capture their stack trace. Otherwise the
+ * {@link StackTracePolicy} system properties apply. Invalid values are parsed
+ * as the system properties are.
+ */
+@Configuration
+@ConditionalOnProperty("user.exception.stack-trace")
+public class ExceptionConfiguration {
+
+	public ExceptionConfiguration(@Value("${user.exception.stack-trace}") String stackTrace,
+			@Value("${user.exception.sample-rate:}") String sampleRateValue) {
+		final StackTracePolicy.Mode mode = StackTracePolicy.parseMode(stackTrace);
+		final double sampleRate = StackTracePolicy.parseSampleRate(sampleRateValue);
+		StackTracePolicy.configure(mode, sampleRate);
+		LoggerFactory.getLogger(ExceptionConfiguration.class).info("functional exceptions stack traces: {} ({})", mode,
+				sampleRate);
+	}
+
+}
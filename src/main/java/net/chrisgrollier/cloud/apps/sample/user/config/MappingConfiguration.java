@@ -0,0 +1,24 @@
+package net.chrisgrollier.cloud.apps.sample.user.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.chrisgrollier.cloud.apps.common.util.mapping.BulkMapping;
+
+/**
+ * Bulk mapping configuration: lists of at least
+ * {@code user.mapping.parallel-threshold} users are mapped in parallel by
+ * {@code user.mapping.parallelism} threads.
+ */
+@Configuration
+public class MappingConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public BulkMapping bulkMapping(
+			@Value("${user.mapping.parallel-threshold:" + BulkMapping.DEFAULT_THRESHOLD + "}") int threshold,
+			@Value("${user.mapping.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int parallelism) {
+		return new BulkMapping(threshold, parallelism);
+	}
+
+}
@@ -0,0 +1,128 @@
+package net.chrisgrollier.cloud.apps.sample.user.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.chrisgrollier.cloud.apps.common.datasource.ReadWriteRoutingDataSource;
+import net.chrisgrollier.cloud.apps.common.datasource.ReadYourWritesTracker;
+
+/**
+ * Read replicas configuration, enabled by setting
+ * {@code user.datasource.replica.urls} to a comma separated list of JDBC urls.
+ * Read-only transactions are routed to the replicas and all other statements
+ * to the primary database configured by the usual {@code spring.datasource}
+ * properties. Replicas use the primary credentials unless
+ * {@code user.datasource.replica.username} and
+ * {@code user.datasource.replica.password} are set.
+ * <p>
+ * Unless {@code user.datasource.read-your-writes.enabled} is
+ * <code>false</code>, reads of a client session are routed to the primary
+ * during {@code user.datasource.read-your-writes.window} after a write of the
+ * same session, bypassing the user cache. Since clients share the same basic
+ * authentication account, sessions are not keyed by the authenticated name but
+ * by the {@code user.datasource.read-your-writes.session-header} request
+ * header ({@code X-Session-Id} by default), else by the HTTP session if any.
+ * Requests with neither are their own session, so that only their own reads
+ * after a write go to the primary. Reads of other sessions may still be served
+ * from a lagging replica, but users changed during
+ * {@code user.cache.recent-change-window} are not cached.
+ * <p>
+ * The primary pool is configured by the usual {@code spring.datasource.hikari}
+ * properties.
+ */
+@Configuration
+@ConditionalOnProperty("user.datasource.replica.urls")
+public class ReadReplicaConfiguration {
+
+	@Bean
+	@ConditionalOnProperty(name = "user.datasource.read-your-writes.enabled", matchIfMissing = true)
+	public ReadYourWritesTracker readYourWritesTracker(
+			@Value("${user.datasource.read-your-writes.window:5s}") Duration window,
+			@Value("${user.datasource.read-your-writes.maximum-sessions:100000}") long maximumSessions,
+			@Value("${user.datasource.read-your-writes.session-header:X-Session-Id}") String sessionHeader) {
+		return new ReadYourWritesTracker(() -> sessionKey(sessionHeader), window, maximumSessions);
+	}
+
+	/**
+	 * Return the key of the client session of the current request, or
+	 * <code>null</code> outside of a request.
+	 */
+	private static Object sessionKey(String sessionHeader) {
+		final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes)) {
+			return null;
+		}
+		final HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+		final String header = request.getHeader(sessionHeader);
+		if (StringUtils.hasText(header)) {
+			return "header:" + header;
+		}
+		final HttpSession session = request.getSession(false);
+		if (session != null) {
+			return "session:" + session.getId();
+		}
+		final String attribute = ReadYourWritesTracker.class.getName() + ".REQUEST_KEY";
+		Object requestKey = request.getAttribute(attribute);
+		if (requestKey == null) {
+			requestKey = "request:" + UUID.randomUUID();
+			request.setAttribute(attribute, requestKey);
+		}
+		return requestKey;
+	}
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+			DataSourceProperties properties, @Value("${user.datasource.replica.urls}") String[] replicaUrls,
+			@Value("${user.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+			@Value("${user.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+			ObjectProvider<ReadYourWritesTracker> tracker) {
+		final List<DataSource> replicas = new ArrayList<>(replicaUrls.length);
+		for (String url : replicaUrls) {
+			// @formatter:off
+			replicas.add(DataSourceBuilder.create()
+					.driverClassName(properties.determineDriverClassName())
+					.url(url.trim())
+					.username(replicaUsername)
+					.password(replicaPassword)
+					.build());
+			// @formatter:on
+		}
+		return new ReadWriteRoutingDataSource(primaryDataSource, replicas, tracker.getIfAvailable());
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+}
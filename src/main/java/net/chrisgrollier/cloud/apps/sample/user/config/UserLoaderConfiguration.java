@@ -0,0 +1,49 @@
+package net.chrisgrollier.cloud.apps.sample.user.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.chrisgrollier.cloud.apps.common.util.concurrent.BatchLoader;
+import net.chrisgrollier.cloud.apps.common.util.mapping.BidiMapper;
+import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+
+/**
+ * Micro batching of user lookups by id, enabled by setting
+ * {@code user.loader.enabled} to {@code true}: ids looked up concurrently
+ * during {@code user.loader.window} are fetched with a single IN query of at
+ * most {@code user.loader.max-batch-size} ids. Lookups fail if their batch is
+ * not loaded within {@code user.loader.timeout}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.loader.enabled", havingValue = "true")
+public class UserLoaderConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public BatchLoader<Integer, User> userByIdLoader(UserDAO userDAO, BidiMapper<User, UserEntity> mapper,
+			MeterRegistry meterRegistry, @Value("${user.loader.window:1ms}") Duration window,
+			@Value("${user.loader.max-batch-size:100}") int maxBatchSize,
+			@Value("${user.loader.concurrency:4}") int concurrency,
+			@Value("${user.loader.timeout:5s}") Duration timeout) {
+		final BatchLoader<Integer, User> loader = new BatchLoader<>("user-loader", ids -> {
+			final Map<Integer, User> users = new HashMap<>();
+			userDAO.findAllById(ids).forEach(entity -> users.put(entity.getId(), mapper.from(entity)));
+			return users;
+		}, window.toNanos(), maxBatchSize, concurrency, timeout.toNanos());
+		FunctionCounter.builder("user.loader.batches", loader, BatchLoader::getBatches)
+				.description("Batches of user lookups by id").register(meterRegistry);
+		FunctionCounter.builder("user.loader.keys", loader, BatchLoader::getLoadedKeys)
+				.description("User ids looked up in batches").register(meterRegistry);
+		return loader;
+	}
+
+}
@@ -3,8 +3,14 @@ package net.chrisgrollier.cloud.apps.sample.user.controller;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
@@ -12,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,10 +27,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import io.swagger.annotations.ApiOperation;
+import net.chrisgrollier.cloud.apps.common.exception.http.BadRequestException;
 import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserBatchItem;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserLookup;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserPage;
 import net.chrisgrollier.cloud.apps.sample.user.service.UserService;
 
 @RestController
@@ -32,14 +50,20 @@ import net.chrisgrollier.cloud.apps.sample.user.service.UserService;
 public class UserController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(UserController.class);
+	private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
 	private final UserService userService;
+	private final ObjectMapper objectMapper;
 
 	@Value("${user.env}")
 	private String env;
 
+	@Value("${user.page.max-limit:1000}")
+	private int maxPageLimit;
+
 	@Autowired
-	public UserController(final UserService userService) {
+	public UserController(final UserService userService, final ObjectMapper objectMapper) {
 		this.userService = userService;
+		this.objectMapper = objectMapper;
 	}
 
 	@ApiOperation("Find all users.")
@@ -48,6 +72,73 @@ public class UserController {
 		return userService.findAllUsers();
 	}
 
+	@ApiOperation("Find users page by page, ordered by identifier.")
+	@GetMapping(produces = APPLICATION_JSON_UTF8_VALUE, params = "limit")
+	public UserPage getUsersPage(@RequestParam("limit") int limit,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "ids", required = false) List<Integer> ids) {
+		if (ids != null) {
+			throw new BadRequestException("ids can not be combined with limit");
+		}
+		if (limit < 1 || limit > maxPageLimit) {
+			throw new BadRequestException("limit must be between 1 and " + maxPageLimit);
+		}
+		final Slice<User> slice = userService.findUsers(decodeCursor(cursor), limit);
+		final UserPage page = new UserPage();
+		page.setUsers(slice.getContent());
+		if (slice.hasNext()) {
+			final String nextCursor = encodeCursor(slice.getContent().get(slice.getNumberOfElements() - 1).getId());
+			page.setNextCursor(nextCursor);
+			// @formatter:off
+			page.setNext(ServletUriComponentsBuilder.fromCurrentRequest()
+					.replaceQueryParam("limit", limit)
+					.replaceQueryParam("cursor", nextCursor)
+					.toUriString());
+			// @formatter:on
+		}
+		return page;
+	}
+
+	@ApiOperation("Find users by identifiers, reporting identifiers that could not be found.")
+	@GetMapping(produces = APPLICATION_JSON_UTF8_VALUE, params = { "ids", "!limit" })
+	public UserLookup getUsersByIds(@RequestParam("ids") List<Integer> ids) {
+		return userService.findUsers(ids);
+	}
+
+	@ApiOperation("Find users by the identifiers given in the request body, reporting identifiers that could not be found.")
+	@PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_UTF8_VALUE, value = "/lookup")
+	public UserLookup lookupUsers(@RequestBody @NotNull final List<Integer> ids) {
+		return userService.findUsers(ids);
+	}
+
+	@ApiOperation("Export all users as newline delimited json, streamed as they are read.")
+	@GetMapping(produces = APPLICATION_NDJSON_VALUE, value = "/export")
+	public void exportUsers(HttpServletResponse response) throws IOException {
+		response.setContentType(APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		final ObjectWriter writer = objectMapper.writerFor(User.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			generator.setRootValueSeparator(null);
+			final long count = userService.exportUsers(user -> {
+				try {
+					final boolean first = generator.getOutputContext().getEntryCount() == 0;
+					writer.writeValue(generator, user);
+					generator.writeRaw('\n');
+					if (first) {
+						// send the first row right away, next ones go out as buffers fill up
+						generator.flush();
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			LOGGER.info("{} users have been exported", count);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
 	@ApiOperation("Find user by the given identifier.")
 	@GetMapping(produces = APPLICATION_JSON_UTF8_VALUE, value = "/{id}")
 	public User getUserById(@PathVariable("id") Integer userId) {
@@ -92,6 +183,14 @@ public class UserController {
 		return addedUser;
 	}
 
+	@ApiOperation("Add a batch of new users, reporting the outcome of each of them.")
+	@PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_UTF8_VALUE, value = "/batch")
+	public List<UserBatchItem> addUsers(@RequestBody @NotNull final List<User> users) {
+		final List<UserBatchItem> items = userService.addUsers(users);
+		LOGGER.info("A batch of {} users has been processed", items.size());
+		return items;
+	}
+
 	@ApiOperation("Update user.")
 	@PutMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_UTF8_VALUE, value = "/{id}")
 	public User updateUser(@PathVariable("id") Integer id, @RequestBody @Valid @NotNull final User user) {
@@ -112,5 +211,19 @@ public class UserController {
 		return autheUser;
 	}
 
+	private static String encodeCursor(Integer id) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Integer decodeCursor(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid cursor " + cursor);
+		}
+	}
 
 }
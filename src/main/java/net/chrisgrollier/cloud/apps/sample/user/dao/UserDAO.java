@@ -3,22 +3,81 @@
  */
 package net.chrisgrollier.cloud.apps.sample.user.dao;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
 
 
 /**
- * A basic User DAO based spring data
+ * A basic User DAO based spring data. Declared query methods run in read-only
+ * transactions, like the finders of the base repository, so that reads made
+ * outside of a service transaction are routed the same way, to a read replica
+ * if any.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface UserDAO extends CrudRepository<UserEntity, Integer> {
 	
 	Optional<UserEntity> findByUsername(String username);
 	
 	
 	boolean existsUserByUsername(String username);
+
+	/**
+	 * Keyset pagination query: return at most one page of users whose identifier
+	 * is strictly greater than the given one. The given {@link Pageable} should be
+	 * sorted on the identifier and its page number should always be 0, the offset
+	 * being carried by the id argument.
+	 * 
+	 * @param id       the last identifier of the previous page
+	 * @param pageable page size and sort
+	 * @return a {@link Slice} of users
+	 */
+	Slice<UserEntity> findByIdGreaterThan(Integer id, Pageable pageable);
+
+	/**
+	 * Stream all users ordered by identifier through a forward only, read only
+	 * cursor fetching {@value #STREAM_FETCH_SIZE} rows per round trip. Must be
+	 * called within a transaction and the returned stream must be closed.
+	 * 
+	 * @return a {@link Stream} of all users
+	 */
+	// @formatter:off
+	@QueryHints({
+		@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+		@QueryHint(name = HINT_READONLY, value = "true"),
+		@QueryHint(name = HINT_CACHEABLE, value = "false")
+	})
+	// @formatter:on
+	@Query("select u from UserEntity u order by u.id")
+	Stream<UserEntity> streamAll();
+
+	/**
+	 * Stream all usernames through a forward only cursor fetching
+	 * {@value #STREAM_FETCH_SIZE} rows per round trip. Must be called within a
+	 * transaction and the returned stream must be closed.
+	 * 
+	 * @return a {@link Stream} of all usernames
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+	@Query("select u.username from UserEntity u")
+	Stream<String> streamAllUsernames();
+
+	/** JDBC fetch size of the streaming queries */
+	String STREAM_FETCH_SIZE = "500";
 }
@@ -5,7 +5,9 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import com.google.common.base.MoreObjects;
@@ -18,9 +20,18 @@ import com.google.common.base.MoreObjects;
 @Table(name = "USERS")
 public class UserEntity {
 
-	/** The user identifier */
+	/** Number of identifiers reserved by a single sequence call */
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	/**
+	 * The user identifier, drawn from a pooled sequence: one sequence call
+	 * reserves a block of {@value #ID_ALLOCATION_SIZE} identifiers, which also
+	 * allows hibernate to batch inserts. The USERS_SEQ sequence must thus be
+	 * incremented by {@value #ID_ALLOCATION_SIZE}.
+	 */
 	@Id
-	@GeneratedValue
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_generator")
+	@SequenceGenerator(name = "users_id_generator", sequenceName = "USERS_SEQ", allocationSize = ID_ALLOCATION_SIZE)
 	@Column(name = "Id", nullable = false)
 	private Integer id;
 
@@ -132,7 +143,7 @@ public class UserEntity {
                           .add("email", email)
                           .add("address", address)
                           .add("username", username)
-                          .add("password", password)
+                          .add("password", password != null ? "******" : null)
                           .toString();
         // @formatter:on
 	}
@@ -113,7 +113,7 @@ public class User {
                           .add("email", email)
                           .add("address", address)
                           .add("username", username)
-                          .add("password", password)
+                          .add("password", password != null ? "******" : null)
                           .toString();
         // @formatter:on
 	}
@@ -0,0 +1,89 @@
+package net.chrisgrollier.cloud.apps.sample.user.model;
+
+import java.util.Collection;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.base.MoreObjects;
+
+import io.swagger.annotations.ApiModelProperty;
+import net.chrisgrollier.cloud.apps.common.exception.handler.FieldError;
+
+/**
+ * The outcome of one user of a batch creation request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchItem {
+
+	@ApiModelProperty(position = 1, value = "The position of the user in the batch request")
+	private final int index;
+
+	@ApiModelProperty(position = 2, value = "CREATED if the user was added, BAD_REQUEST if invalid, CONFLICT or INTERNAL_SERVER_ERROR if it could not be saved")
+	private final HttpStatus status;
+
+	@ApiModelProperty(position = 3, value = "The added user, absent if the user was not added")
+	private final User user;
+
+	@ApiModelProperty(position = 4, value = "The errors explaining why the user was not added")
+	private final Collection<FieldError> errors;
+
+	private UserBatchItem(int index, HttpStatus status, User user, Collection<FieldError> errors) {
+		this.index = index;
+		this.status = status;
+		this.user = user;
+		this.errors = errors;
+	}
+
+	/**
+	 * Create the outcome of a successfully added user.
+	 * 
+	 * @param index the position of the user in the batch
+	 * @param user  the added user
+	 * @return a new {@link UserBatchItem} with a CREATED status
+	 */
+	public static UserBatchItem created(int index, User user) {
+		return new UserBatchItem(index, HttpStatus.CREATED, user, null);
+	}
+
+	/**
+	 * Create the outcome of a user that was not added.
+	 * 
+	 * @param index  the position of the user in the batch
+	 * @param status the status explaining the failure
+	 * @param errors the errors explaining the failure
+	 * @return a new {@link UserBatchItem}
+	 */
+	public static UserBatchItem failed(int index, HttpStatus status, Collection<FieldError> errors) {
+		return new UserBatchItem(index, status, null, errors);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public HttpStatus getStatus() {
+		return status;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public Collection<FieldError> getErrors() {
+		return errors;
+	}
+
+	@Override
+	public String toString() {
+		// @formatter:off
+        return MoreObjects.toStringHelper(this)
+                          .add("index", index)
+                          .add("status", status)
+                          .add("user", user)
+                          .add("errors", errors)
+                          .toString();
+        // @formatter:on
+	}
+
+}
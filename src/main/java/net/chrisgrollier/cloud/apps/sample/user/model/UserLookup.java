@@ -0,0 +1,45 @@
+package net.chrisgrollier.cloud.apps.sample.user.model;
+
+import java.util.Collection;
+
+import com.google.common.base.MoreObjects;
+
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * The result of a multi-get of users by identifier: the users that were found,
+ * in the order of the requested identifiers, and the identifiers that could not
+ * be found.
+ */
+public class UserLookup {
+
+	@ApiModelProperty(position = 1, value = "The users found, in the order of the requested identifiers")
+	private final Collection<User> users;
+
+	@ApiModelProperty(position = 2, value = "The requested identifiers that could not be found")
+	private final Collection<Integer> missing;
+
+	public UserLookup(Collection<User> users, Collection<Integer> missing) {
+		this.users = users;
+		this.missing = missing;
+	}
+
+	public Collection<User> getUsers() {
+		return users;
+	}
+
+	public Collection<Integer> getMissing() {
+		return missing;
+	}
+
+	@Override
+	public String toString() {
+		// @formatter:off
+        return MoreObjects.toStringHelper(this)
+                          .add("users", users)
+                          .add("missing", missing)
+                          .toString();
+        // @formatter:on
+	}
+
+}
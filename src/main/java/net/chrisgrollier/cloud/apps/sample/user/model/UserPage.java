@@ -0,0 +1,62 @@
+package net.chrisgrollier.cloud.apps.sample.user.model;
+
+import java.util.Collection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.base.MoreObjects;
+
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * A page of users returned by the keyset paginated listing. The next page is
+ * reached by following {@link #getNext()} or by passing
+ * {@link #getNextCursor()} as cursor, both being absent on the last page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserPage {
+
+	@ApiModelProperty(position = 1, value = "The users of the page, ordered by identifier")
+	private Collection<User> users;
+
+	@ApiModelProperty(position = 2, value = "The opaque cursor of the next page, absent on the last page")
+	private String nextCursor;
+
+	@ApiModelProperty(position = 3, value = "The link to the next page, absent on the last page")
+	private String next;
+
+	public Collection<User> getUsers() {
+		return users;
+	}
+
+	public void setUsers(Collection<User> users) {
+		this.users = users;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public String getNext() {
+		return next;
+	}
+
+	public void setNext(String next) {
+		this.next = next;
+	}
+
+	@Override
+	public String toString() {
+		// @formatter:off
+        return MoreObjects.toStringHelper(this)
+                          .add("users", users)
+                          .add("nextCursor", nextCursor)
+                          .add("next", next)
+                          .toString();
+        // @formatter:on
+	}
+
+}
@@ -0,0 +1,56 @@
+package net.chrisgrollier.cloud.apps.sample.user.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Event published by {@link UserService} whenever a user is added, updated or
+ * deleted. It holds the user identifier and the usernames the user was known
+ * by, that is its current username and, on update, its previous one.
+ */
+public class UserChangedEvent {
+
+	/** The identifier of the changed user */
+	private final Integer id;
+
+	/** The usernames of the changed user, if known */
+	private final Collection<String> usernames;
+
+	/**
+	 * Create a new event for the given user identifier and usernames.
+	 * 
+	 * @param id        the user identifier
+	 * @param usernames the usernames of the user, <code>null</code> values being
+	 *                  ignored
+	 */
+	public UserChangedEvent(Integer id, String... usernames) {
+		this.id = id;
+		this.usernames = usernames.length == 0 ? Collections.emptyList()
+				: Collections.unmodifiableList(
+						Arrays.stream(usernames).filter(Objects::nonNull).distinct().collect(Collectors.toList()));
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public Collection<String> getUsernames() {
+		return usernames;
+	}
+
+	@Override
+	public String toString() {
+		// @formatter:off
+        return MoreObjects.toStringHelper(this)
+                          .add("id", id)
+                          .add("usernames", usernames)
+                          .toString();
+        // @formatter:on
+	}
+
+}
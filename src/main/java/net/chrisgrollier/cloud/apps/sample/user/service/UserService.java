@@ -1,86 +1,318 @@
 package net.chrisgrollier.cloud.apps.sample.user.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import net.chrisgrollier.cloud.apps.common.datasource.ReadYourWritesTracker;
+import net.chrisgrollier.cloud.apps.common.exception.handler.FieldError;
+import net.chrisgrollier.cloud.apps.common.exception.http.BadRequestException;
 import net.chrisgrollier.cloud.apps.common.exception.service.EntityNotFoundUnrecoverableException;
+import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
+import net.chrisgrollier.cloud.apps.common.util.concurrent.BatchLoader;
+import net.chrisgrollier.cloud.apps.common.util.concurrent.SingleFlight;
 import net.chrisgrollier.cloud.apps.common.util.mapping.BidiMapper;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UserCache;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UsernameFilter;
 import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
 import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
 import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserBatchItem;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserLookup;
 
 @Service
 public class UserService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
+
     private final UserDAO userDAO;
     private final BidiMapper<User, UserEntity> mapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCache userCache;
+    private final UsernameFilter usernameFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageManager messageManager;
+    private final BatchLoader<Integer, User> userByIdLoader;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final SingleFlight<Integer, User> findByIdFlight = new SingleFlight<>();
+    private final SingleFlight<String, User> findByUsernameFlight = new SingleFlight<>();
+    private final SingleFlight<Integer, Boolean> existsByIdFlight = new SingleFlight<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${user.export.clear-interval:500}")
+    private int exportClearInterval;
+
+    @Value("${user.batch.chunk-size:" + UserEntity.ID_ALLOCATION_SIZE + "}")
+    private int batchChunkSize;
+
+    @Value("${user.batch.max-size:10000}")
+    private int batchMaxSize;
+
+    @Value("${user.multiget.chunk-size:500}")
+    private int multiGetChunkSize;
+
+    @Value("${user.multiget.max-size:1000}")
+    private int multiGetMaxSize;
 
     /**
      * Build a new instance injecting given arguments.
      * 
-     * @param userDAO           user DAO bean
-     * @param mapper            mapper bean
-     * @param logServiceFactory {@link LogServiceFactory} bean
+     * @param userDAO            user DAO bean
+     * @param mapper             mapper bean
+     * @param validator          bean validator
+     * @param transactionManager transaction manager used by batch operations
+     * @param userCache          user cache bean
+     * @param usernameFilter     username filter bean
+     * @param eventPublisher     publisher of {@link UserChangedEvent}
+     * @param messageManager     manager of the batch items error messages
+     * @param meterRegistry      registry of lookups metrics
+     * @param userByIdLoader     micro batching loader of users by id, if enabled
+     * @param readYourWritesTracker tracker of sessions pinned to the primary
+     *                           database, if read replicas are enabled
      */
     @Autowired
-    public UserService(final UserDAO userDAO, final BidiMapper<User, UserEntity> mapper) {
+    public UserService(final UserDAO userDAO, final BidiMapper<User, UserEntity> mapper, final Validator validator,
+            final PlatformTransactionManager transactionManager, final UserCache userCache, final UsernameFilter usernameFilter,
+            final ApplicationEventPublisher eventPublisher, final MessageManager messageManager, final MeterRegistry meterRegistry,
+            final ObjectProvider<BatchLoader<Integer, User>> userByIdLoader,
+            final ObjectProvider<ReadYourWritesTracker> readYourWritesTracker) {
         this.userDAO = userDAO;
         this.mapper = mapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userCache = userCache;
+        this.usernameFilter = usernameFilter;
+        this.eventPublisher = eventPublisher;
+        this.messageManager = messageManager;
+        this.userByIdLoader = userByIdLoader.getIfAvailable();
+        this.readYourWritesTracker = readYourWritesTracker.getIfAvailable();
+        registerLookupMetrics(meterRegistry, "id", findByIdFlight);
+        registerLookupMetrics(meterRegistry, "username", findByUsernameFlight);
+        registerLookupMetrics(meterRegistry, "exists.id", existsByIdFlight);
+    }
+
+    private static void registerLookupMetrics(final MeterRegistry meterRegistry, final String lookup, final SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("user.lookups", flight, SingleFlight::getCalls).tag("lookup", lookup)
+                .description("Database lookups of users").register(meterRegistry);
+        FunctionCounter.builder("user.lookups.coalesced", flight, SingleFlight::getCoalescedCalls).tag("lookup", lookup)
+                .description("Database lookups of users that shared a concurrent identical lookup").register(meterRegistry);
     }
 
     /**
-     * Find all existing users.
+     * Find all existing users. Users are mapped lazily, while the returned
+     * collection is iterated, so that only the entities are held in memory.
      * 
-     * @return a collection of {@code User}
+     * @return a read-only collection of {@code User}
      */
+    @Transactional(readOnly = true)
     public Collection<User> findAllUsers() {
-        return mapper.froms(userDAO.findAll());
+        return mapper.fromsView(userDAO.findAll());
+    }
+
+    /**
+     * Find a page of users using keyset pagination on the user identifier. Only
+     * one page of users is loaded, and since the query seeks on the identifier
+     * index, the cost of a page does not depend on how deep the client pages.
+     * 
+     * @param afterId the identifier of the last user of the previous page, or
+     *                <code>null</code> for the first page
+     * @param limit   the maximum number of users of the page
+     * @return a {@link Slice} of {@code User} ordered by identifier
+     */
+    @Transactional(readOnly = true)
+    public Slice<User> findUsers(final Integer afterId, final int limit) {
+        return userDAO.findByIdGreaterThan(afterId != null ? afterId : Integer.MIN_VALUE, PageRequest.of(0, limit, Sort.by("id")))
+                .map(mapper::from);
+    }
+
+    /**
+     * Export all existing users, ordered by identifier, to the given consumer.
+     * Users are read through a database cursor, mapped as they are read and
+     * handed one by one to the consumer, the persistence context being cleared every
+     * {@code user.export.clear-interval} users, so that memory usage does not
+     * depend on the number of exported users. An interval lower than 1 never
+     * clears the persistence context.
+     * 
+     * @param consumer the consumer of exported users
+     * @return the number of exported users
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(final Consumer<? super User> consumer) {
+        long count = 0;
+        try (Stream<User> users = mapper.fromStream(userDAO.streamAll())) {
+            final Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+                if (exportClearInterval > 0 && count % exportClearInterval == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
     }
 
     /**
-     * Find user by id.
+     * Find user by id, from the {@link UserCache} if possible. Concurrent lookups
+     * of the same id that miss the cache share a single database call, and when
+     * {@code user.loader.enabled} concurrent lookups of different ids are fetched
+     * together by the {@link BatchLoader}. Sessions that recently wrote bypass
+     * the cache, which may hold a user read from a lagging replica, and read
+     * from the primary database.
      * 
      * @param id the user identifier as {@code Integer}
      * @return a retrieved {@code User}
      */
     public User findUser(final Integer id) {
-        return userDAO.findById(id).map(mapper::from)
-                .orElseThrow(() -> new EntityNotFoundUnrecoverableException("Could not find user with id = {0}", "user.not.found", id));
+        if (isPinned()) {
+            return loadUser(id);
+        }
+        final User cached = userCache.getIfPresent(id);
+        return cached != null ? cached : findByIdFlight.execute(id, key -> userCache.get(key, this::loadUser));
+    }
+
+    private boolean isPinned() {
+        return readYourWritesTracker != null && readYourWritesTracker.isPinned();
+    }
+
+    private User loadUser(final Integer id) {
+        // batches are loaded by other threads, unaware of the caller session
+        final boolean batched = userByIdLoader != null && !isPinned();
+        final User user = batched ? userByIdLoader.get(id) : userDAO.findById(id).map(mapper::from).orElse(null);
+        if (user == null) {
+            throw new EntityNotFoundUnrecoverableException("Could not find user with id = {0}", "user.not.found", id);
+        }
+        return user;
     }
 
     /**
-     * Find user by username.
+     * Find users by ids. Duplicated ids are ignored and users are fetched with one
+     * query per chunk of {@code user.multiget.chunk-size} ids. Ids that could not
+     * be found are reported in the result instead of raising an exception.
+     * 
+     * @param ids the user identifiers
+     * @return a {@link UserLookup} holding the found users, in the order of the
+     *         given ids, and the missing ids
+     */
+    @Transactional(readOnly = true)
+    public UserLookup findUsers(final Collection<Integer> ids) {
+        final Collection<Integer> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.size() > multiGetMaxSize) {
+            throw new BadRequestException("Can not get more than " + multiGetMaxSize + " users at once");
+        }
+        final Map<Integer, UserEntity> found = new HashMap<>(distinctIds.size() * 4 / 3 + 1);
+        final List<Integer> chunk = new ArrayList<>(Math.min(multiGetChunkSize, distinctIds.size()));
+        for (Integer id : distinctIds) {
+            chunk.add(id);
+            if (chunk.size() == multiGetChunkSize) {
+                userDAO.findAllById(chunk).forEach(entity -> found.put(entity.getId(), entity));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            userDAO.findAllById(chunk).forEach(entity -> found.put(entity.getId(), entity));
+        }
+        final List<UserEntity> entities = new ArrayList<>(found.size());
+        final List<Integer> missing = new ArrayList<>(distinctIds.size() - found.size());
+        for (Integer id : distinctIds) {
+            final UserEntity entity = found.get(id);
+            if (entity != null) {
+                entities.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new UserLookup(mapper.bulkFroms(entities), missing);
+    }
+
+    /**
+     * Find user by username, from the {@link UserCache} if possible. Concurrent
+     * lookups of the same username that miss the cache share a single database
+     * call. Sessions that recently wrote bypass the cache.
      * 
      * @param username the user username as {@code String}
      * @return a retrieved {@code User}
      */
     public User findUser(final String username) {
+        if (isPinned()) {
+            return loadUser(username);
+        }
+        final User cached = userCache.getIfPresent(username);
+        return cached != null ? cached : findByUsernameFlight.execute(username, key -> userCache.get(key, this::loadUser));
+    }
+
+    private User loadUser(final String username) {
         return userDAO.findByUsername(username).map(mapper::from).orElseThrow(
                 () -> new EntityNotFoundUnrecoverableException("Could not find user with username = {0}", "user.not.found.with.username", username));
     }
 
     /**
-     * Check if user with the given id exist
+     * Check if user with the given id exist. Concurrent checks of the same id
+     * share a single database call.
      * 
      * @param id the id as {@code Integer}
      * @return <code>true</code> if the user exist <code>false</code> otherwise.
      */
+    @Transactional(readOnly = true)
     public boolean existsUserById(final Integer id) {
-        return userDAO.existsById(id);
+        return existsByIdFlight.execute(id, userDAO::existsById);
     }
 
     /**
-     * Check if user with the given username exist
+     * Check if user with the given username exist. Usernames that are definitely
+     * not used according to the {@link UsernameFilter} are not looked up in
+     * database.
      * 
      * @param username the username as {@code String}
      * @return <code>true</code> if the user exist <code>false</code> otherwise.
      */
+    @Transactional(readOnly = true)
     public boolean existsUserByUsername(final String username) {
-        return userDAO.existsUserByUsername(username);
+        if (!usernameFilter.mightExist(username)) {
+            return false;
+        }
+        final boolean exists = userDAO.existsUserByUsername(username);
+        usernameFilter.recordLookup(exists);
+        return exists;
     }
 
     /**
@@ -91,7 +323,86 @@ public class UserService {
      */
     @Transactional
     public User addUser(final User user) {
-        return mapper.from(userDAO.save(mapper.to(user)));
+        final UserEntity userEntity = userDAO.save(mapper.to(user));
+        eventPublisher.publishEvent(new UserChangedEvent(userEntity.getId(), userEntity.getUsername()));
+        return mapper.from(userEntity);
+    }
+
+    /**
+     * Saves a batch of users. Every user is validated first, then valid users are
+     * inserted in chunks of {@code user.batch.chunk-size} users, each chunk in its
+     * own transaction so that hibernate sends it as JDBC batch statements. If a
+     * chunk fails, its users are saved one by one to isolate the faulty ones.
+     * 
+     * @param users the list of {@code User} to be added in database
+     * @return the outcome of each user, in the order of the given list
+     */
+    public List<UserBatchItem> addUsers(final List<User> users) {
+        if (users.size() > batchMaxSize) {
+            throw new BadRequestException("A batch can not hold more than " + batchMaxSize + " users");
+        }
+        final UserBatchItem[] items = new UserBatchItem[users.size()];
+        final List<Integer> chunk = new ArrayList<>(batchChunkSize);
+        for (int i = 0; i < users.size(); i++) {
+            final Collection<FieldError> errors = validate(users.get(i));
+            if (!errors.isEmpty()) {
+                items[i] = UserBatchItem.failed(i, HttpStatus.BAD_REQUEST, errors);
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == batchChunkSize) {
+                addChunk(users, chunk, items);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            addChunk(users, chunk, items);
+        }
+        return Arrays.asList(items);
+    }
+
+    private Collection<FieldError> validate(final User user) {
+        if (user == null) {
+            return Collections.singletonList(FieldError.of("User is mandatory"));
+        }
+        final Set<ConstraintViolation<User>> violations = validator.validate(user);
+        final Collection<FieldError> errors = new ArrayList<>(violations.size());
+        violations.forEach(violation -> errors.add(FieldError.of(violation.getPropertyPath().toString(), violation.getMessage())));
+        return errors;
+    }
+
+    private void addChunk(final List<User> users, final List<Integer> chunk, final UserBatchItem[] items) {
+        try {
+            final List<User> saved = transactionTemplate.execute(status -> {
+                final List<UserEntity> entities = new ArrayList<>(chunk.size());
+                chunk.forEach(index -> entities.add(mapper.to(users.get(index))));
+                userDAO.saveAll(entities);
+                entities.forEach(entity -> eventPublisher.publishEvent(new UserChangedEvent(entity.getId(), entity.getUsername())));
+                entityManager.flush();
+                entityManager.clear();
+                return new ArrayList<>(mapper.froms(entities));
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                items[chunk.get(i)] = UserBatchItem.created(chunk.get(i), saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to add a chunk of {} users, adding them one by one", chunk.size(), e);
+            chunk.forEach(index -> items[index] = addBatchItem(index, users.get(index)));
+        }
+    }
+
+    private UserBatchItem addBatchItem(final int index, final User user) {
+        try {
+            return UserBatchItem.created(index, transactionTemplate.execute(status -> this.addUser(user)));
+        } catch (DataIntegrityViolationException e) {
+            LOGGER.info("Unable to add batch item {}", index, e);
+            return UserBatchItem.failed(index, HttpStatus.CONFLICT,
+                    Collections.singletonList(FieldError.of(messageManager.getMessage("user.batch.conflict"))));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to add batch item {}", index, e);
+            return UserBatchItem.failed(index, HttpStatus.INTERNAL_SERVER_ERROR,
+                    Collections.singletonList(FieldError.of(messageManager.getMessage("user.batch.error"))));
+        }
     }
 
     /**
@@ -106,7 +417,9 @@ public class UserService {
         UserEntity userEntity = userDAO.findById(id)
                 .orElseThrow(() -> new EntityNotFoundUnrecoverableException("Unable to update user with id = {0} cause could not find it",
                         "update.user.not.found", id));
+        final String previousUsername = userEntity.getUsername();
         mapper.copyTo(user, userDAO.save(userEntity));
+        eventPublisher.publishEvent(new UserChangedEvent(id, previousUsername, userEntity.getUsername()));
         return mapper.from(userEntity);
     }
 
@@ -119,6 +432,7 @@ public class UserService {
     public void deleteUser(final Integer id) {
         try {
             userDAO.deleteById(id);
+            eventPublisher.publishEvent(new UserChangedEvent(id));
         } catch (EmptyResultDataAccessException e) {
             throw new EntityNotFoundUnrecoverableException("Unable to delete user with id = {0} cause could not find it", e, "delete.user.not.found",
                     id);
@@ -131,7 +445,7 @@ public class UserService {
      * 
      * @param USER the user as {@code USER}
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public User authenticate(final User user) {
         String username = user.getUsername();
         final User userInfo = userDAO.findByUsername(username).map(mapper::from).orElseThrow(() -> new EntityNotFoundUnrecoverableException(
@@ -0,0 +1,84 @@
+package net.chrisgrollier.cloud.apps.common.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ReadWriteRoutingDataSourceTest {
+
+	private final DataSource primary = mock(DataSource.class);
+
+	private final ReadYourWritesTracker tracker = mock(ReadYourWritesTracker.class);
+
+	private final ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primary,
+			Arrays.asList(mock(DataSource.class), mock(DataSource.class)), tracker);
+
+	@After
+	public void endTransaction() {
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	public void statementsOutsideOfTransactionsGoToThePrimary() {
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("primary");
+	}
+
+	@Test
+	public void readWriteTransactionsGoToThePrimaryAndPinTheSession() {
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("primary");
+		verify(tracker).writing();
+	}
+
+	@Test
+	public void readOnlyTransactionsGoToReplicasInTurn() {
+		beginReadOnlyTransaction();
+
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+	}
+
+	@Test
+	public void readOnlyTransactionsOfPinnedSessionsGoToThePrimary() {
+		beginReadOnlyTransaction();
+		when(tracker.isPinned()).thenReturn(true);
+
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("primary");
+	}
+
+	@Test
+	public void readOnlyTransactionsForcedOnThePrimaryGoToThePrimary() {
+		beginReadOnlyTransaction();
+
+		assertThat(ReadWriteRoutingDataSource.onPrimary(dataSource::determineCurrentLookupKey)).isEqualTo("primary");
+		assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("replica-0");
+	}
+
+	@Test
+	public void readOnlyTransactionsGoToThePrimaryWithoutReplicas() {
+		beginReadOnlyTransaction();
+		final ReadWriteRoutingDataSource primaryOnly = new ReadWriteRoutingDataSource(primary,
+				Collections.emptyList(), null);
+
+		assertThat(primaryOnly.determineCurrentLookupKey()).isEqualTo("primary");
+	}
+
+	private static void beginReadOnlyTransaction() {
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+	}
+
+}
@@ -0,0 +1,67 @@
+package net.chrisgrollier.cloud.apps.common.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.chrisgrollier.cloud.apps.common.exception.StackTracePolicy.Mode;
+
+public class StackTracePolicyTest {
+
+	private final Mode mode = StackTracePolicy.getMode();
+
+	private final double sampleRate = StackTracePolicy.getSampleRate();
+
+	@After
+	public void restorePolicy() {
+		StackTracePolicy.configure(mode, sampleRate);
+	}
+
+	@Test
+	public void modesAreParsedLeniently() {
+		assertThat(StackTracePolicy.parseMode(" never ")).isEqualTo(Mode.NEVER);
+		assertThat(StackTracePolicy.parseMode("Sampled")).isEqualTo(Mode.SAMPLED);
+		assertThat(StackTracePolicy.parseMode(null)).isEqualTo(Mode.ALWAYS);
+		assertThat(StackTracePolicy.parseMode("  ")).isEqualTo(Mode.ALWAYS);
+		assertThat(StackTracePolicy.parseMode("sometimes")).isEqualTo(Mode.ALWAYS);
+	}
+
+	@Test
+	public void sampleRatesAreParsedLeniently() {
+		assertThat(StackTracePolicy.parseSampleRate(" 0.25 ")).isEqualTo(0.25);
+		assertThat(StackTracePolicy.parseSampleRate("2")).isEqualTo(1);
+		assertThat(StackTracePolicy.parseSampleRate("-0.5")).isEqualTo(0);
+		assertThat(StackTracePolicy.parseSampleRate(null)).isEqualTo(StackTracePolicy.DEFAULT_SAMPLE_RATE);
+		assertThat(StackTracePolicy.parseSampleRate("often")).isEqualTo(StackTracePolicy.DEFAULT_SAMPLE_RATE);
+		assertThat(StackTracePolicy.parseSampleRate("NaN")).isEqualTo(StackTracePolicy.DEFAULT_SAMPLE_RATE);
+	}
+
+	@Test
+	public void invalidSampleRatesAreRejected() {
+		assertThatThrownBy(() -> StackTracePolicy.configure(Mode.SAMPLED, 1.5))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> StackTracePolicy.configure(Mode.SAMPLED, Double.NaN))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(StackTracePolicy.getMode()).isEqualTo(mode);
+	}
+
+	@Test
+	public void functionalExceptionsFollowThePolicy() {
+		StackTracePolicy.configure(Mode.NEVER, 1);
+		assertThat(new FunctionalException("not found").getStackTrace()).isEmpty();
+		assertThat(new UnrecoverableFunctionalException("not found").getStackTrace()).isEmpty();
+
+		StackTracePolicy.configure(Mode.SAMPLED, 0);
+		assertThat(new FunctionalException("not found").getStackTrace()).isEmpty();
+
+		StackTracePolicy.configure(Mode.SAMPLED, 1);
+		assertThat(new FunctionalException("not found").getStackTrace()).isNotEmpty();
+
+		StackTracePolicy.configure(Mode.ALWAYS, 0);
+		assertThat(new FunctionalException("not found").getStackTrace()).isNotEmpty();
+		assertThat(new UnrecoverableFunctionalException("not found").getStackTrace()).isNotEmpty();
+	}
+
+}
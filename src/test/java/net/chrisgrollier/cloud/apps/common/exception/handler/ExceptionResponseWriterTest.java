@@ -0,0 +1,67 @@
+package net.chrisgrollier.cloud.apps.common.exception.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ExceptionResponseWriterTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ExceptionResponseWriter writer = new ExceptionResponseWriter();
+
+	@Test
+	public void responsesAreWrittenAsObjectMapperDoes() throws Exception {
+		final ExceptionResponse withErrors = ExceptionResponse.of(HttpStatus.BAD_REQUEST, "Invalid \"user\"\nété ☃");
+		withErrors.addFieldError("username", "must not be blank");
+		withErrors.addFieldError("unknown field");
+		final List<ExceptionResponse> responses = Arrays.asList(ExceptionResponse.of(HttpStatus.NOT_FOUND),
+				ExceptionResponse.of(HttpStatus.CONFLICT, "Username already used"),
+				ExceptionResponse.of(HttpStatus.INTERNAL_SERVER_ERROR, null), withErrors);
+
+		for (ExceptionResponse response : responses) {
+			assertThat(new String(writer.write(response), "UTF-8"))
+					.isEqualTo(objectMapper.writeValueAsString(response));
+		}
+	}
+
+	@Test
+	public void everyStatusIsWrittenAsObjectMapperDoes() throws Exception {
+		for (HttpStatus status : HttpStatus.values()) {
+			assertThat(writer.write(ExceptionResponse.of(status)))
+					.isEqualTo(objectMapper.writeValueAsBytes(ExceptionResponse.of(status)));
+		}
+	}
+
+	@Test
+	public void responsesWithoutSpecificMessageShareTheirBody() {
+		assertThat(writer.write(ExceptionResponse.of(HttpStatus.NOT_FOUND)))
+				.isSameAs(writer.write(ExceptionResponse.of(HttpStatus.NOT_FOUND, "Not Found")));
+		assertThat(writer.write(ExceptionResponse.of(HttpStatus.NOT_FOUND, "User not found")))
+				.isNotSameAs(writer.write(ExceptionResponse.of(HttpStatus.NOT_FOUND)));
+	}
+
+	@Test
+	public void entitiesKeepTheirStatusAndHeaders() {
+		final HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, "30");
+
+		final ResponseEntity<byte[]> entity = writer.write(new ResponseEntity<>(
+				ExceptionResponse.of(HttpStatus.SERVICE_UNAVAILABLE), headers, HttpStatus.SERVICE_UNAVAILABLE));
+
+		assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(entity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+		assertThat(entity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON_UTF8);
+		assertThat(entity.getBody()).isEqualTo(writer.write(ExceptionResponse.of(HttpStatus.SERVICE_UNAVAILABLE)));
+	}
+
+}
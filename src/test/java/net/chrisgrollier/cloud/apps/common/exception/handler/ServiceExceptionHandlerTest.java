@@ -0,0 +1,76 @@
+package net.chrisgrollier.cloud.apps.common.exception.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import net.chrisgrollier.cloud.apps.common.exception.FunctionalException;
+import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
+import net.chrisgrollier.cloud.apps.common.internal.i18n.CachingMessageManager;
+
+public class ServiceExceptionHandlerTest {
+
+	private ServiceExceptionHandler handler;
+
+	@Before
+	public void setUp() {
+		LocaleContextHolder.setLocale(Locale.ENGLISH);
+		final StaticMessageSource messageSource = new StaticMessageSource();
+		messageSource.addMessage("user.notfound", Locale.ENGLISH, "User {0} not found");
+		handler = new ServiceExceptionHandler(HttpStatus.NOT_FOUND,
+				new CachingMessageManager(messageSource, new Locale[] { Locale.ENGLISH }));
+	}
+
+	@After
+	public void tearDown() {
+		LocaleContextHolder.resetLocaleContext();
+	}
+
+	@Test
+	public void knownMessageKeysAreRendered() {
+		final ResponseEntity<ExceptionResponse> response = handler
+				.handle(new FunctionalException("missing {0}", "user.notfound", 42));
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(response.getBody().getMessage()).isEqualTo("User 42 not found");
+	}
+
+	@Test
+	public void unknownMessageKeysFallBackToTheFormattedExceptionMessage() {
+		assertThat(handler.handle(new FunctionalException("missing {0}", "user.unknown", 42)).getBody().getMessage())
+				.isEqualTo("missing 42");
+		assertThat(handler.handle(new FunctionalException("missing {0}", "user.unknown")).getBody().getMessage())
+				.isEqualTo("missing {0}");
+	}
+
+	@Test
+	public void unknownMessageKeysAreNotRendered() {
+		final MessageManager messageManager = mock(MessageManager.class);
+		when(messageManager.hasMessage("user.unknown")).thenReturn(false);
+
+		new ServiceExceptionHandler(HttpStatus.NOT_FOUND, messageManager)
+				.handle(new FunctionalException("missing {0}", "user.unknown", 42));
+
+		verify(messageManager).hasMessage("user.unknown");
+		verifyNoMoreInteractions(messageManager);
+	}
+
+	@Test
+	public void otherExceptionsKeepTheirMessage() {
+		assertThat(handler.handle(new IllegalStateException("broken {0}")).getBody().getMessage())
+				.isEqualTo("broken {0}");
+	}
+
+}
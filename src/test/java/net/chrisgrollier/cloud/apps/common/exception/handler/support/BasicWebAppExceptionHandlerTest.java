@@ -0,0 +1,94 @@
+package net.chrisgrollier.cloud.apps.common.exception.handler.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
+
+public class BasicWebAppExceptionHandlerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private BasicWebAppExceptionHandler handler;
+
+	@Before
+	public void setUp() {
+		handler = new BasicWebAppExceptionHandler(mock(MessageManager.class));
+		handler.setMeterRegistry(meterRegistry);
+	}
+
+	@Test
+	public void statusesAreResolvedFromResponseStatusAnnotations() {
+		assertThat(handler.handleException(new ConflictException()).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(handler.handleException(new GoneException()).getStatusCode()).isEqualTo(HttpStatus.GONE);
+		assertThat(handler.handleException(new ConflictException() {
+			private static final long serialVersionUID = 1L;
+		}).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(handler.handleException(new IllegalStateException()).getStatusCode())
+				.isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+
+	@Test
+	public void responsesHoldTheExceptionMessage() {
+		final ResponseEntity<byte[]> response = handler.handleException(new IllegalStateException("connection reset"));
+
+		assertThat(new String(response.getBody(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"statusCode\":\"INTERNAL_SERVER_ERROR\",\"message\":\"connection reset\",\"errors\":[]}");
+	}
+
+	@Test
+	public void eachExceptionTypeIsTimedOnce() {
+		handler.handleException(new ConflictException());
+		handler.handleException(new ConflictException());
+		handler.handleException(new GoneException());
+
+		assertThat(timer(ConflictException.class.getName()).count()).isEqualTo(2);
+		assertThat(timer(GoneException.class.getName()).count()).isEqualTo(1);
+		assertThat(meterRegistry.find(BasicWebAppExceptionHandler.METRIC_NAME).timers()).hasSize(2);
+	}
+
+	@Test
+	public void exceptionTypesBeyondTheLimitShareATimer() {
+		for (int i = 0; i < BasicWebAppExceptionHandler.MAX_EXCEPTION_TYPES + 5; i++) {
+			// a new exception type for each iteration
+			final Enhancer enhancer = new Enhancer();
+			enhancer.setSuperclass(GoneException.class);
+			enhancer.setUseCache(false);
+			enhancer.setCallback(NoOp.INSTANCE);
+			handler.handleException((Exception) enhancer.create());
+		}
+
+		assertThat(meterRegistry.find(BasicWebAppExceptionHandler.METRIC_NAME).timers())
+				.hasSize(BasicWebAppExceptionHandler.MAX_EXCEPTION_TYPES + 1);
+		assertThat(timer(BasicWebAppExceptionHandler.OTHER_EXCEPTION_TYPES).count()).isEqualTo(5);
+	}
+
+	private Timer timer(String exception) {
+		return meterRegistry.get(BasicWebAppExceptionHandler.METRIC_NAME).tag("exception", exception).timer();
+	}
+
+	@ResponseStatus(HttpStatus.CONFLICT)
+	private static class ConflictException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	@ResponseStatus(code = HttpStatus.GONE, reason = "Removed")
+	static class GoneException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+}
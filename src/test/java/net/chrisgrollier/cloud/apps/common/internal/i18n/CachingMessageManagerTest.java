@@ -0,0 +1,142 @@
+package net.chrisgrollier.cloud.apps.common.internal.i18n;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.StaticMessageSource;
+
+public class CachingMessageManagerTest {
+
+	private static final Locale[] SUPPORTED_LOCALES = { Locale.ENGLISH, Locale.FRENCH };
+
+	private CountingMessageSource messageSource;
+
+	private CachingMessageManager messageManager;
+
+	private DefaultMessageManager defaultMessageManager;
+
+	@Before
+	public void setUp() {
+		messageSource = new CountingMessageSource();
+		messageSource.addMessage("user.greeting", Locale.ENGLISH, "Hello {0}, you have {1,number,integer} messages");
+		messageSource.addMessage("user.greeting", Locale.FRENCH, "Bonjour {0}, vous avez {1,number,integer} messages");
+		messageSource.addMessage("user.quote", Locale.ENGLISH, "It''s {0}");
+		messageSource.addMessage("user.raw", Locale.ENGLISH, "It''s raw");
+		messageManager = new CachingMessageManager(messageSource, SUPPORTED_LOCALES);
+		defaultMessageManager = new DefaultMessageManager(messageSource, SUPPORTED_LOCALES);
+	}
+
+	@Test
+	public void messagesAreRenderedAsTheDefaultMessageManagerDoes() {
+		for (Locale locale : SUPPORTED_LOCALES) {
+			assertThat(messageManager.getMessage("user.greeting", locale, "John", 1200))
+					.isEqualTo(defaultMessageManager.getMessage("user.greeting", locale, "John", 1200));
+		}
+		assertThat(messageManager.getMessage("user.quote", Locale.ENGLISH, "John"))
+				.isEqualTo(defaultMessageManager.getMessage("user.quote", Locale.ENGLISH, "John"))
+				.isEqualTo("It's John");
+		assertThat(messageManager.getMessage("user.raw", Locale.ENGLISH))
+				.isEqualTo(defaultMessageManager.getMessage("user.raw", Locale.ENGLISH))
+				.isEqualTo("It''s raw");
+	}
+
+	@Test
+	public void patternsAreResolvedOncePerSupportedLocale() {
+		messageManager.getMessage("user.greeting", Locale.ENGLISH, "John", 1);
+		messageManager.getMessage("user.greeting", Locale.ENGLISH, "Jane", 2);
+		messageManager.getMessage("user.greeting", Locale.US, "Jack", 3);
+
+		assertThat(messageSource.resolutions("user.greeting", Locale.ENGLISH)).isEqualTo(1);
+		assertThat(messageSource.resolutions("user.greeting", Locale.US)).isZero();
+
+		messageManager.clear();
+		messageManager.getMessage("user.greeting", Locale.ENGLISH, "John", 1);
+
+		assertThat(messageSource.resolutions("user.greeting", Locale.ENGLISH)).isEqualTo(2);
+	}
+
+	@Test
+	public void localesAreMappedToSupportedLocales() {
+		assertThat(messageManager.getMessage("user.greeting", Locale.CANADA_FRENCH, "Jean", 2))
+				.isEqualTo("Bonjour Jean, vous avez 2 messages");
+		assertThat(messageManager.getMessage("user.greeting", Locale.US, "John", 2))
+				.isEqualTo("Hello John, you have 2 messages");
+		// unknown languages use the first supported locale
+		assertThat(messageManager.getMessage("user.greeting", Locale.GERMAN, "Hans", 2))
+				.isEqualTo("Hello Hans, you have 2 messages");
+	}
+
+	@Test
+	public void missingMessagesAreReportedOnEachCall() {
+		assertThatThrownBy(() -> messageManager.getMessage("user.unknown", Locale.ENGLISH))
+				.isInstanceOf(NoSuchMessageException.class);
+		assertThatThrownBy(() -> messageManager.getMessage("user.unknown", Locale.ENGLISH))
+				.isInstanceOf(NoSuchMessageException.class);
+
+		assertThat(messageSource.resolutions("user.unknown", Locale.ENGLISH)).isEqualTo(1);
+	}
+
+	@Test
+	public void messageKeysAreLookedUpWithoutException() {
+		for (DefaultMessageManager manager : new DefaultMessageManager[] { messageManager, defaultMessageManager }) {
+			assertThat(manager.hasMessage("user.greeting", Locale.FRENCH)).isTrue();
+			assertThat(manager.hasMessage("user.raw", Locale.FRENCH)).isFalse();
+			assertThat(manager.hasMessage("user.unknown", Locale.ENGLISH)).isFalse();
+		}
+	}
+
+	@Test
+	public void missingMessageKeysAreLookedUpOnce() {
+		assertThat(messageManager.hasMessage("user.unknown", Locale.ENGLISH)).isFalse();
+		assertThat(messageManager.hasMessage("user.unknown", Locale.UK)).isFalse();
+
+		assertThat(messageSource.resolutions("user.unknown", Locale.ENGLISH)).isEqualTo(1);
+	}
+
+	@Test
+	public void allMessagesFallBackToTheKey() {
+		final Map<Locale, String> messages = messageManager.getAllMessages("user.raw");
+
+		assertThat(messages).containsExactly(entry(Locale.ENGLISH, "It''s raw"), entry(Locale.FRENCH, "user.raw"));
+		assertThat(messages).isEqualTo(defaultMessageManager.getAllMessages("user.raw"));
+		assertThat(messageManager.getAllMessages("user.raw")).isSameAs(messages);
+		assertThatThrownBy(() -> messages.put(Locale.GERMAN, "raw")).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void allMessagesAreFormattedWithTheirArguments() {
+		assertThat(messageManager.getAllMessages("user.greeting", "Ann", 3))
+				.containsExactly(entry(Locale.ENGLISH, "Hello Ann, you have 3 messages"),
+						entry(Locale.FRENCH, "Bonjour Ann, vous avez 3 messages"));
+	}
+
+	private static Map.Entry<Locale, String> entry(Locale locale, String message) {
+		return org.assertj.core.api.Assertions.entry(locale, message);
+	}
+
+	/**
+	 * A static message source counting the resolutions of each message code.
+	 */
+	private static class CountingMessageSource extends StaticMessageSource {
+
+		private final Map<String, Integer> resolutions = new HashMap<>();
+
+		@Override
+		protected String resolveCodeWithoutArguments(String code, Locale locale) {
+			resolutions.merge(code + '_' + locale, 1, Integer::sum);
+			return super.resolveCodeWithoutArguments(code, locale);
+		}
+
+		int resolutions(String code, Locale locale) {
+			return resolutions.getOrDefault(code + '_' + locale, 0);
+		}
+	}
+
+}
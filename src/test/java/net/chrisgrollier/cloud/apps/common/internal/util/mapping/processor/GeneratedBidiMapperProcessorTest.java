@@ -0,0 +1,106 @@
+package net.chrisgrollier.cloud.apps.common.internal.util.mapping.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeneratedBidiMapperProcessorTest {
+
+	private static final String MODEL = "package sample;\n"
+			+ "public class Model {\n"
+			+ "	private Integer id; private String name; private String secret; private boolean active;\n"
+			+ "	public Integer getId() { return id; } public void setId(Integer id) { this.id = id; }\n"
+			+ "	public String getName() { return name; } public void setName(String name) { this.name = name; }\n"
+			+ "	public String getSecret() { return secret; } public void setSecret(String secret) { this.secret = secret; }\n"
+			+ "	public boolean isActive() { return active; } public void setActive(boolean active) { this.active = active; }\n"
+			+ "}\n";
+
+	private static final String ENTITY = MODEL.replace("Model", "Entity");
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+	@Test
+	public void propertiesAreCopiedWithGettersAndSetters() throws IOException {
+		assertThat(compile("excludes = \"secret\", toExcludes = \"id\"")).isTrue();
+
+		final String source = generated();
+		assertThat(source).contains("@org.springframework.stereotype.Component",
+				"public class ModelMapperImpl extends net.chrisgrollier.cloud.apps.common.util.mapping.AbstractBidiMapper<sample.Model, sample.Entity>",
+				"t.setId(s.getId());", "t.setName(s.getName());", "t.setActive(s.isActive());",
+				"s.setName(t.getName());", "s.setActive(t.isActive());");
+		assertThat(source).doesNotContain("s.setId(", "setSecret(");
+	}
+
+	@Test
+	public void onlyIncludedPropertiesAreCopied() throws IOException {
+		assertThat(compile("includes = \"name\", component = false")).isTrue();
+
+		final String source = generated();
+		assertThat(source).contains("t.setName(s.getName());", "s.setName(t.getName());");
+		assertThat(source).doesNotContain("@org.springframework.stereotype.Component", "setId(", "setActive(");
+	}
+
+	@Test
+	public void unknownPropertiesAreReported() throws IOException {
+		assertThat(compile("excludes = \"unknown\"")).isFalse();
+
+		assertThat(errors()).anyMatch(message -> message.contains("Unknown property unknown"));
+	}
+
+	private boolean compile(String attributes) throws IOException {
+		final File sources = folder.newFolder("src", "sample");
+		write(new File(sources, "Model.java"), MODEL);
+		write(new File(sources, "Entity.java"), ENTITY);
+		write(new File(sources, "ModelMapper.java"), "package sample;\n"
+				+ "@net.chrisgrollier.cloud.apps.common.util.mapping.GeneratedBidiMapper(model = Model.class, entity = Entity.class, "
+				+ attributes + ")\n"
+				+ "public interface ModelMapper extends net.chrisgrollier.cloud.apps.common.util.mapping.BidiMapper<Model, Entity> {\n"
+				+ "}\n");
+		final File classes = folder.newFolder("classes");
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+				StandardCharsets.UTF_8)) {
+			final List<String> options = new ArrayList<>(Arrays.asList("-d", classes.getPath(), "-s",
+					classes.getPath(), "-classpath", System.getProperty("java.class.path"), "-processor",
+					GeneratedBidiMapperProcessor.class.getName()));
+			return compiler.getTask(null, fileManager, diagnostics, options, null,
+					fileManager.getJavaFileObjects(sources.listFiles())).call();
+		}
+	}
+
+	private String generated() throws IOException {
+		return new String(Files.readAllBytes(new File(folder.getRoot(), "classes/sample/ModelMapperImpl.java").toPath()),
+				StandardCharsets.UTF_8);
+	}
+
+	private List<String> errors() {
+		return diagnostics.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+				.map(diagnostic -> diagnostic.getMessage(null)).collect(Collectors.toList());
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
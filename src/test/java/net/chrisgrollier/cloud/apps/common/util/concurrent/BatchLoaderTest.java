@@ -0,0 +1,153 @@
+package net.chrisgrollier.cloud.apps.common.util.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.chrisgrollier.cloud.apps.common.exception.TechnicalException;
+
+public class BatchLoaderTest {
+
+	private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+	private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+	private final List<Collection<Integer>> batches = new CopyOnWriteArrayList<>();
+
+	private BatchLoader<Integer, String> loader;
+
+	@After
+	public void close() {
+		if (loader != null) {
+			loader.close();
+		}
+	}
+
+	@Test
+	public void keysRequestedDuringTheWindowAreLoadedTogether() throws Exception {
+		loader = new BatchLoader<>("test", this::loadEvenKeys, WINDOW, 100, 1, TIMEOUT);
+
+		final CompletableFuture<String> one = loader.load(1);
+		final CompletableFuture<String> two = loader.load(2);
+		final CompletableFuture<String> twoAgain = loader.load(2);
+
+		assertThat(two.get(5, TimeUnit.SECONDS)).isEqualTo("value2");
+		assertThat(one.get(5, TimeUnit.SECONDS)).isNull();
+		assertThat(twoAgain).isSameAs(two);
+		assertThat(batches).containsExactly(Arrays.asList(1, 2));
+		assertThat(loader.getBatches()).isEqualTo(1);
+		assertThat(loader.getLoadedKeys()).isEqualTo(2);
+	}
+
+	@Test
+	public void fullBatchesAreLoadedRightAway() throws Exception {
+		loader = new BatchLoader<>("test", this::loadEvenKeys, TimeUnit.SECONDS.toNanos(10), 2, 1, TIMEOUT);
+
+		final CompletableFuture<String> two = loader.load(2);
+		loader.load(4);
+
+		assertThat(two.get(1, TimeUnit.SECONDS)).isEqualTo("value2");
+		assertThat(batches).containsExactly(Arrays.asList(2, 4));
+	}
+
+	@Test
+	public void batchesFollowingAFullBatchGetTheirWholeWindow() throws Exception {
+		final long window = TimeUnit.MILLISECONDS.toNanos(400);
+		loader = new BatchLoader<>("test", this::loadEvenKeys, window, 2, 1, TIMEOUT);
+
+		loader.load(2);
+		loader.load(4).get(1, TimeUnit.SECONDS);
+		Thread.sleep(300);
+		// the window of the full batch elapses while this one is collected
+		final CompletableFuture<String> six = loader.load(6);
+		Thread.sleep(200);
+
+		assertThat(six).isNotDone();
+		assertThat(six.get(5, TimeUnit.SECONDS)).isEqualTo("value6");
+		assertThat(batches).containsExactly(Arrays.asList(2, 4), Arrays.asList(6));
+	}
+
+	@Test
+	public void batchFunctionExceptionsAreThrownToCallers() {
+		loader = new BatchLoader<>("test", keys -> {
+			throw new IllegalStateException("database down");
+		}, WINDOW, 100, 1, TIMEOUT);
+
+		assertThatThrownBy(() -> loader.get(1)).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+	}
+
+	@Test
+	public void getTimesOut() {
+		final CountDownLatch release = new CountDownLatch(1);
+		loader = new BatchLoader<>("test", keys -> {
+			await(release);
+			return loadEvenKeys(keys);
+		}, WINDOW, 100, 1, TimeUnit.MILLISECONDS.toNanos(50));
+
+		try {
+			assertThatThrownBy(() -> loader.get(2)).isInstanceOf(TechnicalException.class);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void closeFailsPendingAndLaterKeys() {
+		loader = new BatchLoader<>("test", this::loadEvenKeys, TimeUnit.SECONDS.toNanos(10), 100, 1, TIMEOUT);
+		final CompletableFuture<String> pending = loader.load(2);
+
+		loader.close();
+
+		assertThat(pending).isCompletedExceptionally();
+		assertThat(loader.load(4)).isCompletedExceptionally();
+		assertThat(batches).isEmpty();
+	}
+
+	@Test
+	public void closeFailsBatchesWaitingForALoaderThread() throws Exception {
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		loader = new BatchLoader<>("test", keys -> {
+			loading.countDown();
+			await(release);
+			return loadEvenKeys(keys);
+		}, WINDOW, 1, 1, TIMEOUT);
+		loader.load(2);
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		final CompletableFuture<String> queued = loader.load(4);
+
+		loader.close();
+		release.countDown();
+
+		assertThat(queued).isCompletedExceptionally();
+	}
+
+	private Map<Integer, String> loadEvenKeys(Collection<Integer> keys) {
+		batches.add(new ArrayList<>(keys));
+		final Map<Integer, String> values = new HashMap<>();
+		keys.stream().filter(key -> key % 2 == 0).forEach(key -> values.put(key, "value" + key));
+		return values;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
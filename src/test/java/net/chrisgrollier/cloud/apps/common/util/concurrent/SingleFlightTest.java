@@ -0,0 +1,98 @@
+package net.chrisgrollier.cloud.apps.common.util.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentCallsOfTheSameKeyShareOneLoad() throws Exception {
+		final SingleFlight<Integer, String> flight = new SingleFlight<>();
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(executor.submit(() -> flight.execute(1, key -> {
+				loads.incrementAndGet();
+				await(release);
+				return "user" + key;
+			})));
+		}
+		waitUntil(() -> flight.getCoalescedCalls() == 3);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("user1");
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(flight.getCalls()).isEqualTo(4);
+	}
+
+	@Test
+	public void sharedCallsGetTheLoadException() throws Exception {
+		final SingleFlight<Integer, String> flight = new SingleFlight<>();
+		final CountDownLatch release = new CountDownLatch(1);
+		final Future<String> first = executor.submit(() -> flight.execute(1, key -> {
+			await(release);
+			throw new IllegalStateException("load failed");
+		}));
+		waitUntil(() -> flight.getCalls() == 1);
+		final Future<String> second = executor.submit(() -> flight.execute(1, key -> "not called"));
+		waitUntil(() -> flight.getCoalescedCalls() == 1);
+		release.countDown();
+
+		assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void completedCallsAreNotCached() {
+		final SingleFlight<Integer, Integer> flight = new SingleFlight<>();
+		final AtomicInteger loads = new AtomicInteger();
+
+		flight.execute(1, key -> loads.incrementAndGet());
+		flight.execute(1, key -> loads.incrementAndGet());
+
+		assertThat(loads).hasValue(2);
+		assertThat(flight.getCoalescedCalls()).isZero();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("condition not met within 5 seconds");
+			}
+			Thread.sleep(1);
+		}
+	}
+
+}
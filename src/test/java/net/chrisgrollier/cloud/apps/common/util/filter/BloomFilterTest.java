@@ -0,0 +1,51 @@
+package net.chrisgrollier.cloud.apps.common.util.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	@Test
+	public void addedValuesAreAlwaysFound() {
+		final BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user" + i);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("user" + i)).isTrue();
+		}
+	}
+
+	@Test
+	public void falsePositiveRateIsCloseToTheExpectedOne() {
+		final BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000d).isLessThan(0.02);
+		assertThat(filter.getExpectedFpp()).isLessThan(0.02);
+	}
+
+	@Test
+	public void emptyFilterContainsNothing() {
+		final BloomFilter filter = new BloomFilter(100, 0.01);
+
+		assertThat(filter.mightContain("user")).isFalse();
+		assertThat(filter.getFillRatio()).isZero();
+	}
+
+	@Test
+	public void invalidSizingIsRejected() {
+		assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new BloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,106 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class AbstractBidiMapperTest {
+
+	@Test
+	public void mappedObjectsAreCreatedThroughTheirConstructors() {
+		final NameMapper mapper = new NameMapper();
+
+		final Model model = mapper.from(entity("jdoe"));
+		final Entity entity = mapper.to(model);
+
+		assertThat(model.name).isEqualTo("jdoe");
+		assertThat(entity.name).isEqualTo("jdoe");
+		assertThat(mapper.from(entity("jdoe"))).isNotSameAs(model);
+	}
+
+	@Test
+	public void classesWithoutConstructorFailWhenMapped() {
+		final NoConstructorMapper mapper = new NoConstructorMapper();
+
+		assertThatThrownBy(() -> mapper.from(entity("jdoe"))).isInstanceOf(RuntimeException.class)
+				.hasMessageContaining(NoConstructor.class.getName());
+	}
+
+	@Test
+	public void factoryMethodsMayBeOverridden() {
+		final NoConstructorMapper mapper = new NoConstructorMapper() {
+
+			@Override
+			protected NoConstructor newT() {
+				return new NoConstructor("default");
+			}
+		};
+
+		assertThat(mapper.from(entity("jdoe")).name).isEqualTo("jdoe");
+	}
+
+	private static Entity entity(String name) {
+		final Entity entity = new Entity();
+		entity.name = name;
+		return entity;
+	}
+
+	public static class Model {
+
+		String name;
+	}
+
+	public static class Entity {
+
+		String name;
+	}
+
+	public static class NoConstructor {
+
+		String name;
+
+		public NoConstructor(String name) {
+			this.name = name;
+		}
+	}
+
+	private static class NameMapper extends AbstractBidiMapper<Model, Entity> {
+
+		NameMapper() {
+			super(Model.class, Entity.class);
+		}
+
+		@Override
+		public Model copyFrom(Model t, Entity s) {
+			t.name = s.name;
+			return t;
+		}
+
+		@Override
+		public Entity copyTo(Model t, Entity s) {
+			s.name = t.name;
+			return s;
+		}
+	}
+
+	private static class NoConstructorMapper extends AbstractBidiMapper<NoConstructor, Entity> {
+
+		NoConstructorMapper() {
+			super(NoConstructor.class, Entity.class);
+		}
+
+		@Override
+		public NoConstructor copyFrom(NoConstructor t, Entity s) {
+			t.name = s.name;
+			return t;
+		}
+
+		@Override
+		public Entity copyTo(NoConstructor t, Entity s) {
+			s.name = t.name;
+			return s;
+		}
+	}
+
+}
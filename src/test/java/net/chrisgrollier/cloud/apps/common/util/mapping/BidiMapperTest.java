@@ -0,0 +1,67 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class BidiMapperTest {
+
+	private final AtomicInteger mappings = new AtomicInteger();
+
+	private final BidiMapper<String, Integer> mapper = new AbstractBidiMapper<String, Integer>(String.class,
+			Integer.class) {
+
+		@Override
+		public String from(Integer s) {
+			mappings.incrementAndGet();
+			return "n" + s;
+		}
+
+		@Override
+		public Integer to(String t) {
+			mappings.incrementAndGet();
+			return Integer.valueOf(t.substring(1));
+		}
+
+		@Override
+		public String copyFrom(String t, Integer s) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Integer copyTo(String t, Integer s) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	@Test
+	public void streamsAreMappedLazily() {
+		final Stream<String> mapped = mapper.fromStream(Stream.of(1, 2, 3));
+		assertThat(mappings).hasValue(0);
+
+		assertThat(mapped.limit(2).collect(Collectors.toList())).containsExactly("n1", "n2");
+		assertThat(mappings).hasValue(2);
+	}
+
+	@Test
+	public void closingMappedStreamsClosesTheirSource() {
+		final AtomicBoolean fromSourceClosed = new AtomicBoolean();
+		final AtomicBoolean toSourceClosed = new AtomicBoolean();
+
+		try (Stream<String> mapped = mapper.fromStream(Stream.of(1, 2).onClose(() -> fromSourceClosed.set(true)))) {
+			assertThat(mapped.count()).isEqualTo(2);
+		}
+		try (Stream<Integer> mapped = mapper.toStream(Stream.of("n1").onClose(() -> toSourceClosed.set(true)))) {
+			assertThat(mapped.findFirst()).contains(1);
+		}
+
+		assertThat(fromSourceClosed).isTrue();
+		assertThat(toSourceClosed).isTrue();
+	}
+
+}
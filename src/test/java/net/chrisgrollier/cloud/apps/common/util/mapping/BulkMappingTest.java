@@ -0,0 +1,109 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BulkMappingTest {
+
+	private final BulkMapping bulkMapping = new BulkMapping(100, 4);
+
+	private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+	@After
+	public void close() {
+		bulkMapping.close();
+	}
+
+	@Test
+	public void smallCollectionsAreMappedByTheCaller() {
+		final List<String> mapped = bulkMapping.map(numbers(99), this::map);
+
+		assertThat(mapped).isEqualTo(expected(99));
+		assertThat(threads).containsExactly(Thread.currentThread().getName());
+	}
+
+	@Test
+	public void largeCollectionsAreMappedInParallelInOrder() {
+		final CountDownLatch concurrentThreads = new CountDownLatch(2);
+
+		final List<String> mapped = bulkMapping.map(numbers(10000), number -> {
+			if (threads.add(Thread.currentThread().getName())) {
+				// wait for another thread to map objects at the same time
+				concurrentThreads.countDown();
+				await(concurrentThreads);
+			}
+			return "n" + number;
+		});
+
+		assertThat(mapped).isEqualTo(expected(10000));
+		assertThat(concurrentThreads.getCount()).isZero();
+	}
+
+	@Test
+	public void iterablesOfUnknownSizeAreMappedInOrder() {
+		final List<Integer> numbers = numbers(1000);
+
+		final List<String> mapped = bulkMapping.map(numbers::iterator, this::map);
+
+		assertThat(mapped).isEqualTo(expected(1000));
+	}
+
+	@Test
+	public void mappersUseTheirBulkMapping() {
+		final AbstractBidiMapper<String, Integer> mapper = new AbstractBidiMapper<String, Integer>(String.class,
+				Integer.class) {
+
+			@Override
+			public String from(Integer s) {
+				return map(s);
+			}
+
+			@Override
+			public String copyFrom(String t, Integer s) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public Integer copyTo(String t, Integer s) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		mapper.setBulkMapping(bulkMapping);
+
+		assertThat(mapper.bulkFroms(numbers(1000))).isEqualTo(expected(1000));
+		assertThat(threads).anyMatch(thread -> thread.startsWith("bulk-mapping-"));
+	}
+
+	private String map(Integer number) {
+		threads.add(Thread.currentThread().getName());
+		return "n" + number;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<Integer> numbers(int count) {
+		return IntStream.range(0, count).boxed().collect(Collectors.toCollection(ArrayList::new));
+	}
+
+	private static List<String> expected(int count) {
+		return IntStream.range(0, count).mapToObj(number -> "n" + number).collect(Collectors.toList());
+	}
+
+}
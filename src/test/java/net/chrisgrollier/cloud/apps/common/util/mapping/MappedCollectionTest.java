@@ -0,0 +1,88 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class MappedCollectionTest {
+
+	private final AtomicInteger mappings = new AtomicInteger();
+
+	@Test
+	public void elementsAreMappedWhenAccessed() {
+		final Collection<String> view = new MappedCollection<>(Arrays.asList(1, 2, 3), this::map);
+		assertThat(mappings).hasValue(0);
+
+		assertThat(new ArrayList<>(view)).containsExactly("n1", "n2", "n3");
+		assertThat(mappings).hasValue(3);
+
+		assertThat(new ArrayList<>(view)).containsExactly("n1", "n2", "n3");
+		assertThat(mappings).hasValue(6);
+	}
+
+	@Test
+	public void sizeIsCountedWithoutMapping() {
+		final List<Integer> numbers = Arrays.asList(1, 2, 3);
+
+		assertThat(new MappedCollection<>(numbers, this::map)).hasSize(3);
+		assertThat(new MappedCollection<>(numbers::iterator, this::map)).hasSize(3);
+		assertThat(new MappedCollection<>(numbers::iterator, this::map).isEmpty()).isFalse();
+		assertThat(new MappedCollection<>(Collections::<Integer> emptyIterator, this::map).isEmpty()).isTrue();
+		assertThat(mappings).hasValue(0);
+	}
+
+	@Test
+	public void viewsAreReadOnly() {
+		final Collection<String> view = new MappedCollection<>(Arrays.asList(1, 2, 3), this::map);
+
+		assertThatThrownBy(() -> view.add("n4")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> view.iterator().remove()).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void mappersReturnViews() {
+		final BidiMapper<String, Integer> mapper = new AbstractBidiMapper<String, Integer>(String.class,
+				Integer.class) {
+
+			@Override
+			public String from(Integer s) {
+				return map(s);
+			}
+
+			@Override
+			public Integer to(String t) {
+				return Integer.valueOf(t.substring(1));
+			}
+
+			@Override
+			public String copyFrom(String t, Integer s) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public Integer copyTo(String t, Integer s) {
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		final Collection<String> view = mapper.fromsView(Arrays.asList(1, 2));
+
+		assertThat(mappings).hasValue(0);
+		assertThat(view).containsExactly("n1", "n2");
+		assertThat(mapper.tosView(view)).containsExactly(1, 2);
+	}
+
+	private String map(Integer number) {
+		mappings.incrementAndGet();
+		return "n" + number;
+	}
+
+}
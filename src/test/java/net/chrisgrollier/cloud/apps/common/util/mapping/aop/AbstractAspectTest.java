@@ -0,0 +1,66 @@
+package net.chrisgrollier.cloud.apps.common.util.mapping.aop;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.Test;
+
+public class AbstractAspectTest {
+
+	private final AbstractLoggingAspect aspect = new AbstractLoggingAspect(true) {
+	};
+
+	@Test
+	public void sensitiveArgumentsAreMasked() {
+		final ProceedingJoinPoint pjp = joinPoint(new String[] { "username", "password", "apiToken" }, "jdoe",
+				"secret", "abc");
+
+		assertThat(aspect.argsToString(pjp, true)).isEqualTo("username=jdoe, password=******, apiToken=abc");
+		assertThat(aspect.argsToString(pjp, false)).isEqualTo("******");
+	}
+
+	@Test
+	public void sensitiveNamesIgnoreCase() {
+		assertThat(aspect.isSensitive("Password")).isTrue();
+		assertThat(aspect.isSensitive("TOKEN")).isTrue();
+		assertThat(aspect.isSensitive("credentials")).isTrue();
+		assertThat(aspect.isSensitive("username")).isFalse();
+	}
+
+	@Test
+	public void argumentsAreRenderedLazily() {
+		final AtomicInteger renderings = new AtomicInteger();
+		final Object argument = new Object() {
+
+			@Override
+			public String toString() {
+				renderings.incrementAndGet();
+				return "argument";
+			}
+		};
+		final ProceedingJoinPoint pjp = joinPoint(new String[] { "value" }, argument);
+
+		final Object args = aspect.lazyArgs(pjp, true);
+		final Object result = aspect.lazyResult(argument, true);
+		assertThat(renderings).hasValue(0);
+
+		assertThat(args.toString()).isEqualTo("value=argument");
+		assertThat(result.toString()).isEqualTo("argument");
+		assertThat(renderings).hasValue(2);
+	}
+
+	private static ProceedingJoinPoint joinPoint(String[] names, Object... args) {
+		final MethodSignature signature = mock(MethodSignature.class);
+		when(signature.getParameterNames()).thenReturn(names);
+		final ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+		when(pjp.getSignature()).thenReturn(signature);
+		when(pjp.getArgs()).thenReturn(args);
+		return pjp;
+	}
+
+}
@@ -0,0 +1,95 @@
+package net.chrisgrollier.cloud.apps.sample.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+
+public class DataInitTest {
+
+    private final UserDAO userDAO = mock(UserDAO.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<List<UserEntity>> chunks = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(userDAO.saveAll(anyIterable())).thenAnswer(invocation -> {
+            final List<UserEntity> chunk = invocation.getArgument(0);
+            chunks.add(new ArrayList<>(chunk));
+            return chunk;
+        });
+    }
+
+    @Test
+    public void usersAreInsertedByChunks() throws Exception {
+        seed(25, 10, 2);
+
+        assertThat(chunks).extracting(List::size).containsExactlyInAnyOrder(10, 10, 5);
+        final Map<String, UserEntity> users = users();
+        assertThat(users).hasSize(25);
+        assertThat(users.values()).allSatisfy(user -> {
+            assertThat(user.getFirstName()).isNotEmpty();
+            assertThat(user.getEmail()).contains("@");
+            assertThat(user.getPassword()).hasSize(12);
+        });
+    }
+
+    @Test
+    public void usersDoNotDependOnTheNumberOfThreads() throws Exception {
+        seed(25, 10, 1);
+        final Map<String, UserEntity> sequential = users();
+        chunks.clear();
+
+        seed(25, 3, 4);
+
+        assertThat(users().keySet()).isEqualTo(sequential.keySet());
+    }
+
+    @Test
+    public void chunksSeededByAPreviousRunAreSkipped() throws Exception {
+        seed(25, 10, 1);
+        final String firstUsername = chunks.get(0).get(0).getUsername();
+        chunks.clear();
+        when(userDAO.existsUserByUsername(anyString())).thenAnswer(invocation -> firstUsername.equals(invocation.getArgument(0)));
+
+        seed(25, 10, 1);
+
+        assertThat(chunks).extracting(List::size).containsExactly(10, 5);
+    }
+
+    private void seed(final int count, final int chunkSize, final int threads) throws Exception {
+        final DataInit dataInit = new DataInit(userDAO, transactionManager);
+        ReflectionTestUtils.setField(dataInit, "count", count);
+        ReflectionTestUtils.setField(dataInit, "randomSeed", 42L);
+        ReflectionTestUtils.setField(dataInit, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(dataInit, "threads", threads);
+        dataInit.run(null);
+    }
+
+    private Map<String, UserEntity> users() {
+        final Map<String, UserEntity> users = new TreeMap<>();
+        synchronized (chunks) {
+            chunks.forEach(chunk -> chunk.forEach(user -> users.put(user.getUsername(), user)));
+        }
+        return users;
+    }
+
+}
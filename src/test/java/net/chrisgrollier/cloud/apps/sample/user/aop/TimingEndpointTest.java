@@ -0,0 +1,68 @@
+package net.chrisgrollier.cloud.apps.sample.user.aop;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapper;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapperImpl;
+
+public class TimingEndpointTest {
+
+	private final UserTimingAspect timingAspect = new UserTimingAspect();
+
+	private final TimingEndpoint endpoint = new TimingEndpoint(timingAspect);
+
+	private final UserModelEntityMapper mapper = timed(new UserModelEntityMapperImpl());
+
+	@Test
+	public void latenciesAccumulateAcrossReads() {
+		mapper.from(new UserEntity());
+		assertThat(timing("from")).containsEntry("count", 1L).containsEntry("errors", 0L);
+
+		mapper.from(new UserEntity());
+		mapper.from(new UserEntity());
+
+		final Map<String, Object> timing = timing("from");
+		assertThat(timing).containsEntry("count", 3L).containsKeys("throughput", "p50", "p99", "p999", "max");
+		assertThat((Double) timing.get("max")).isGreaterThan(0d);
+	}
+
+	@Test
+	public void failedCallsAreCounted() {
+		assertThatThrownBy(() -> mapper.from(null)).isInstanceOf(NullPointerException.class);
+
+		assertThat(timing("from")).containsEntry("count", 1L).containsEntry("errors", 1L);
+	}
+
+	@Test
+	public void resetDiscardsLatencies() {
+		mapper.from(new UserEntity());
+
+		endpoint.reset();
+
+		assertThat(endpoint.timings()).isEmpty();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> timing(String method) {
+		final Map<String, Object> timings = endpoint.timings();
+		assertThat(timings).hasSize(1);
+		final Map.Entry<String, Object> timing = timings.entrySet().iterator().next();
+		assertThat(timing.getKey()).contains(method);
+		return (Map<String, Object>) timing.getValue();
+	}
+
+	private UserModelEntityMapper timed(UserModelEntityMapper target) {
+		final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAspect(timingAspect);
+		return proxyFactory.getProxy();
+	}
+
+}
@@ -0,0 +1,103 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserChangedEvent;
+
+public class UserCacheTest {
+
+	private final UserCache cache = newCache(Duration.ZERO);
+
+	@Test
+	public void loadedUsersAreCachedByIdAndUsername() {
+		final AtomicInteger loads = new AtomicInteger();
+
+		cache.get(1, id -> {
+			loads.incrementAndGet();
+			return user(id, "jdoe");
+		});
+
+		assertThat(cache.get(1, id -> user(id, "other")).getUsername()).isEqualTo("jdoe");
+		assertThat(cache.getIfPresent("jdoe").getId()).isEqualTo(1);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	public void changedUsersAreEvicted() {
+		cache.get(1, id -> user(id, "jdoe"));
+
+		cache.onUserChanged(new UserChangedEvent(1, "jdoe", "john"));
+
+		assertThat(cache.getIfPresent(1)).isNull();
+		assertThat(cache.getIfPresent("jdoe")).isNull();
+	}
+
+	@Test
+	public void staleUsernameEntriesAreIgnored() {
+		cache.get("jdoe", username -> user(1, username));
+
+		// the user was renamed, and reloaded by id only
+		cache.evict(1, Collections.emptyList());
+		cache.get(1, id -> user(id, "john"));
+
+		assertThat(cache.getIfPresent("jdoe")).isNull();
+	}
+
+	@Test
+	public void usersLoadedWhileAUserChangesAreNotCached() {
+		final User loaded = cache.get(1, id -> {
+			// committed by another thread while loading
+			cache.evict(1, Collections.singletonList("jdoe"));
+			return user(id, "jdoe");
+		});
+
+		assertThat(loaded.getUsername()).isEqualTo("jdoe");
+		assertThat(cache.getIfPresent(1)).isNull();
+		assertThat(cache.getIfPresent("jdoe")).isNull();
+	}
+
+	@Test
+	public void recentlyChangedUsersAreNotCached() {
+		final UserCache recentChangesCache = newCache(Duration.ofMinutes(1));
+		recentChangesCache.evict(1, Collections.singletonList("jdoe"));
+
+		recentChangesCache.get(1, id -> user(id, "jdoe"));
+		recentChangesCache.get("jdoe", username -> user(2, username));
+
+		assertThat(recentChangesCache.getIfPresent(1)).isNull();
+		assertThat(recentChangesCache.getIfPresent(2)).isNull();
+		recentChangesCache.get(3, id -> user(id, "other"));
+		assertThat(recentChangesCache.getIfPresent(3)).isNotNull();
+	}
+
+	@Test
+	public void evictAllEmptiesTheCache() {
+		cache.get(1, id -> user(id, "jdoe"));
+		cache.get(2, id -> user(id, "john"));
+
+		cache.evictAll();
+
+		assertThat(cache.getIfPresent(1)).isNull();
+		assertThat(cache.getIfPresent("john")).isNull();
+	}
+
+	private static UserCache newCache(Duration recentChangeWindow) {
+		return new UserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), recentChangeWindow);
+	}
+
+	static User user(Integer id, String username) {
+		final User user = new User();
+		user.setId(id);
+		user.setUsername(username);
+		return user;
+	}
+
+}
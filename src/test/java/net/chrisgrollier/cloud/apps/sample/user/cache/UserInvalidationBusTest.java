@@ -0,0 +1,164 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import static net.chrisgrollier.cloud.apps.sample.user.cache.UserCacheTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.chrisgrollier.cloud.apps.common.exception.TechnicalException;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserChangedEvent;
+
+public class UserInvalidationBusTest {
+
+	/** long enough for the scheduled flushes not to interfere */
+	private static final long FLUSH_INTERVAL = 3_600_000;
+
+	private final RecordingTransport transport = new RecordingTransport();
+
+	private final UserCache localCache = newCache();
+
+	private final UsernameFilter localFilter = mock(UsernameFilter.class);
+
+	private final UserCache remoteCache = newCache();
+
+	private final UsernameFilter remoteFilter = mock(UsernameFilter.class);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@SuppressWarnings("unchecked")
+	private final ArgumentCaptor<Collection<String>> usernames = ArgumentCaptor.forClass(Collection.class);
+
+	private final UserInvalidationBus local = new UserInvalidationBus(transport, localCache, localFilter, objectMapper,
+			FLUSH_INTERVAL);
+
+	private final UserInvalidationBus remote = new UserInvalidationBus(transport, remoteCache, remoteFilter,
+			objectMapper, FLUSH_INTERVAL);
+
+	@After
+	public void destroy() {
+		local.destroy();
+		remote.destroy();
+	}
+
+	@Test
+	public void flushedChangesAreAppliedByOtherNodes() {
+		localCache.get(1, id -> user(id, "jdoe"));
+		remoteCache.get(1, id -> user(id, "jdoe"));
+
+		local.onUserChanged(new UserChangedEvent(1, "jdoe", "john"));
+		local.flush();
+
+		assertThat(transport.payloads).hasSize(1);
+		assertThat(remoteCache.getIfPresent(1)).isNull();
+		verify(remoteFilter).add(usernames.capture());
+		assertThat(usernames.getValue()).containsExactlyInAnyOrder("jdoe", "john");
+		// the local node already evicted its entries once the change was committed
+		assertThat(localCache.getIfPresent(1)).isNotNull();
+		verify(localFilter, never()).add(anyCollection());
+	}
+
+	@Test
+	public void changesOfTheSameUserAreCoalesced() throws Exception {
+		local.onUserChanged(new UserChangedEvent(1, "jdoe"));
+		local.onUserChanged(new UserChangedEvent(1, "john"));
+		local.onUserChanged(new UserChangedEvent(2, "jane"));
+		local.flush();
+
+		assertThat(transport.payloads).hasSize(1);
+		final UserInvalidationBus.Message message = objectMapper.readValue(transport.payloads.get(0),
+				UserInvalidationBus.Message.class);
+		assertThat(message.getChanges()).hasSize(2);
+		assertThat(message.getChanges()).filteredOn(change -> change.getId() == 1).hasSize(1).first()
+				.satisfies(change -> assertThat(change.getUsernames()).containsExactlyInAnyOrder("jdoe", "john"));
+	}
+
+	@Test
+	public void changesAreSplitInMessagesFittingTheTransport() throws Exception {
+		transport.maxPayloadSize = 200;
+		for (int id = 0; id < 20; id++) {
+			local.onUserChanged(new UserChangedEvent(id, "user" + id));
+		}
+		local.flush();
+
+		assertThat(transport.payloads.size()).isGreaterThan(1);
+		int changes = 0;
+		for (String payload : transport.payloads) {
+			assertThat(payload.length()).isLessThanOrEqualTo(200);
+			changes += objectMapper.readValue(payload, UserInvalidationBus.Message.class).getChanges().size();
+		}
+		assertThat(changes).isEqualTo(20);
+	}
+
+	@Test
+	public void changesThatCouldNotBeSentAreSentAtNextFlush() {
+		remoteCache.get(1, id -> user(id, "jdoe"));
+		transport.failures = 1;
+
+		local.onUserChanged(new UserChangedEvent(1, "jdoe"));
+		local.flush();
+		assertThat(remoteCache.getIfPresent(1)).isNotNull();
+
+		local.onUserChanged(new UserChangedEvent(1, "john"));
+		local.flush();
+		assertThat(remoteCache.getIfPresent(1)).isNull();
+		verify(remoteFilter).add(usernames.capture());
+		assertThat(usernames.getValue()).containsExactlyInAnyOrder("jdoe", "john");
+	}
+
+	@Test
+	public void unreadableMessagesEvictAllUsers() {
+		remoteCache.get(1, id -> user(id, "jdoe"));
+
+		transport.publish("not a message");
+
+		assertThat(remoteCache.getIfPresent(1)).isNull();
+		verify(remoteFilter).onRemoteChangesLost();
+	}
+
+	private static UserCache newCache() {
+		return new UserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), Duration.ZERO);
+	}
+
+	/**
+	 * In memory transport recording payloads, with a configurable payload size
+	 * and failures.
+	 */
+	private static class RecordingTransport extends InMemoryInvalidationTransport {
+
+		final List<String> payloads = new ArrayList<>();
+
+		int maxPayloadSize = Integer.MAX_VALUE;
+
+		int failures;
+
+		@Override
+		public int getMaxPayloadSize() {
+			return maxPayloadSize;
+		}
+
+		@Override
+		public void publish(String payload) {
+			if (failures > 0) {
+				failures--;
+				throw new TechnicalException("transport down");
+			}
+			payloads.add(payload);
+			super.publish(payload);
+		}
+	}
+
+}
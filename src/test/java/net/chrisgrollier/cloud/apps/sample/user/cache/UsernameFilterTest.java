@@ -0,0 +1,123 @@
+package net.chrisgrollier.cloud.apps.sample.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserChangedEvent;
+
+public class UsernameFilterTest {
+
+	private final UserDAO userDAO = mock(UserDAO.class);
+
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	@Test
+	public void rebuiltFilterTellsUnusedUsernames() {
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+		when(userDAO.streamAllUsernames()).thenReturn(Stream.of("jdoe", "jane"));
+		final UsernameFilter filter = newFilter("memory");
+
+		assertThat(filter.mightExist("unknown")).isTrue();
+		assertThat(filter.rebuild()).isTrue();
+
+		assertThat(filter.mightExist("jdoe")).isTrue();
+		assertThat(filter.mightExist("jane")).isTrue();
+		assertThat(filter.mightExist("unknown")).isFalse();
+		assertThat(filter.getDefiniteNegatives()).isEqualTo(1);
+	}
+
+	@Test
+	public void changedUsernamesAreAdded() {
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+		when(userDAO.streamAllUsernames()).thenReturn(Stream.empty());
+		final UsernameFilter filter = newFilter("memory");
+		filter.rebuild();
+
+		filter.onUserChanged(new UserChangedEvent(1, "jdoe"));
+		filter.add(Collections.singletonList("jane"));
+
+		assertThat(filter.mightExist("jdoe")).isTrue();
+		assertThat(filter.mightExist("jane")).isTrue();
+	}
+
+	@Test
+	public void usernamesAddedDuringTheScanAreNotMissed() {
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+		final UsernameFilter filter = newFilter("memory");
+		when(userDAO.streamAllUsernames()).thenAnswer(invocation -> {
+			// committed by another thread after the scan read its rows
+			filter.add(Collections.singletonList("late"));
+			return Stream.of("jdoe");
+		});
+
+		filter.rebuild();
+
+		assertThat(filter.mightExist("late")).isTrue();
+	}
+
+	@Test
+	public void filtersThatMayMissRemoteChangesAreRebuilt() throws Exception {
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+		final CountDownLatch scanning = new CountDownLatch(1);
+		when(userDAO.streamAllUsernames()).thenReturn(Stream.of("jdoe")).thenAnswer(invocation -> {
+			// hold the background rebuild until the disabled filter is checked
+			scanning.await(5, TimeUnit.SECONDS);
+			return Stream.of("jdoe");
+		});
+		final UsernameFilter filter = newFilter("memory");
+		filter.rebuild();
+
+		filter.onRemoteChangesLost();
+		assertThat(filter.mightExist("unknown")).isTrue();
+		scanning.countDown();
+
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (filter.getFilter() == null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(filter.mightExist("jdoe")).isTrue();
+		assertThat(filter.mightExist("unknown")).isFalse();
+	}
+
+	@Test
+	public void falsePositivesAreMeasured() {
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+		when(userDAO.streamAllUsernames()).thenReturn(Stream.empty());
+		final UsernameFilter filter = newFilter("memory");
+		filter.rebuild();
+
+		filter.mightExist("unknown");
+		filter.recordLookup(false);
+
+		assertThat(filter.getFalsePositives()).isEqualTo(1);
+		assertThat(filter.getMeasuredFalsePositiveRate()).isEqualTo(0.5);
+	}
+
+	@Test
+	public void filterIsDisabledWithoutInvalidationTransport() {
+		final UsernameFilter filter = newFilter("");
+
+		assertThat(filter.rebuild()).isFalse();
+		assertThat(filter.mightExist("unknown")).isTrue();
+		verify(userDAO, never()).streamAllUsernames();
+	}
+
+	private UsernameFilter newFilter(String invalidationTransport) {
+		return new UsernameFilter(userDAO, transactionManager, 1000, 0.01, invalidationTransport, false);
+	}
+
+}
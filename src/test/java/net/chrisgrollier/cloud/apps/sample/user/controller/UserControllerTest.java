@@ -0,0 +1,133 @@
+package net.chrisgrollier.cloud.apps.sample.user.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.chrisgrollier.cloud.apps.common.exception.handler.FieldError;
+import net.chrisgrollier.cloud.apps.common.internal.i18n.DefaultMessageManager;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserBatchItem;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserLookup;
+import net.chrisgrollier.cloud.apps.sample.user.service.UserService;
+
+public class UserControllerTest {
+
+	private final UserService userService = mock(UserService.class);
+
+	private MockMvc mockMvc;
+
+	@Before
+	public void setUp() {
+		final UserController controller = new UserController(userService, new ObjectMapper());
+		ReflectionTestUtils.setField(controller, "maxPageLimit", 100);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller)
+				.setControllerAdvice(new AppExceptionHandler(new DefaultMessageManager(new StaticMessageSource())))
+				.build();
+	}
+
+	@Test
+	public void pagesLinkToTheNextOne() throws Exception {
+		when(userService.findUsers(null, 2))
+				.thenReturn(new SliceImpl<>(Arrays.asList(user(1), user(2)), PageRequest.of(0, 2), true));
+
+		// @formatter:off
+		mockMvc.perform(get("/api/v1/users").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.users", hasSize(2)))
+				.andExpect(jsonPath("$.nextCursor").value("Mg"))
+				.andExpect(jsonPath("$.next", containsString("cursor=Mg")));
+		// @formatter:on
+	}
+
+	@Test
+	public void cursorsResumeAfterTheirUser() throws Exception {
+		when(userService.findUsers(2, 2))
+				.thenReturn(new SliceImpl<>(Collections.singletonList(user(3)), PageRequest.of(0, 2), false));
+
+		// @formatter:off
+		mockMvc.perform(get("/api/v1/users").param("limit", "2").param("cursor", "Mg"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.users[0].id").value(3))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+		// @formatter:on
+	}
+
+	@Test
+	public void invalidPagesAreRejected() throws Exception {
+		mockMvc.perform(get("/api/v1/users").param("limit", "0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/v1/users").param("limit", "101")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/v1/users").param("limit", "2").param("cursor", "not-a-cursor"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/v1/users").param("limit", "2").param("ids", "1,2"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void batchesReportTheOutcomeOfEachUser() throws Exception {
+		when(userService.addUsers(anyList())).thenReturn(Arrays.asList(UserBatchItem.created(0, user(1)),
+				UserBatchItem.failed(1, HttpStatus.CONFLICT,
+						Collections.singletonList(FieldError.of("Username or email already used")))));
+
+		// @formatter:off
+		mockMvc.perform(post("/api/v1/users/batch").contentType(MediaType.APPLICATION_JSON).content("[{},{}]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].status").value("CREATED"))
+				.andExpect(jsonPath("$[0].user.id").value(1))
+				.andExpect(jsonPath("$[1].index").value(1))
+				.andExpect(jsonPath("$[1].status").value("CONFLICT"))
+				.andExpect(jsonPath("$[1].user").doesNotExist())
+				.andExpect(jsonPath("$[1].errors[0].message").value("Username or email already used"));
+		// @formatter:on
+	}
+
+	@Test
+	public void lookupsReportMissingUsers() throws Exception {
+		when(userService.findUsers(Arrays.asList(1, 2)))
+				.thenReturn(new UserLookup(Collections.singletonList(user(1)), Collections.singletonList(2)));
+
+		// @formatter:off
+		mockMvc.perform(post("/api/v1/users/lookup").contentType(MediaType.APPLICATION_JSON).content("[1,2]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.users[0].id").value(1))
+				.andExpect(jsonPath("$.missing[0]").value(2));
+		mockMvc.perform(get("/api/v1/users").param("ids", "1,2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.missing[0]").value(2));
+		// @formatter:on
+		verify(userService, times(2)).findUsers(Arrays.asList(1, 2));
+	}
+
+	private static User user(Integer id) {
+		final User user = new User();
+		user.setId(id);
+		user.setUsername("user" + id);
+		return user;
+	}
+
+}
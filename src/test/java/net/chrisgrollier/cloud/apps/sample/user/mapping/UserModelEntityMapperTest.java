@@ -0,0 +1,45 @@
+package net.chrisgrollier.cloud.apps.sample.user.mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+
+public class UserModelEntityMapperTest {
+
+	private final UserModelEntityMapper mapper = new UserModelEntityMapperImpl();
+
+	@Test
+	public void entitiesAreMappedToUsers() {
+		final UserEntity entity = new UserEntity();
+		entity.setId(1);
+		entity.setUsername("jdoe");
+		entity.setEmail("jdoe@example.com");
+		entity.setRole(Role.ADMIN);
+
+		final User user = mapper.from(entity);
+
+		assertThat(user.getId()).isEqualTo(1);
+		assertThat(user.getUsername()).isEqualTo("jdoe");
+		assertThat(user.getEmail()).isEqualTo("jdoe@example.com");
+		assertThat(user.getRole()).isEqualTo(Role.ADMIN);
+	}
+
+	@Test
+	public void usersAreMappedToEntitiesWithoutTheirIdentifier() {
+		final User user = new User();
+		user.setId(1);
+		user.setUsername("jdoe");
+		user.setPassword("secret");
+
+		final UserEntity entity = mapper.to(user);
+
+		assertThat(entity.getId()).isNull();
+		assertThat(entity.getUsername()).isEqualTo("jdoe");
+		assertThat(entity.getPassword()).isEqualTo("secret");
+	}
+
+}
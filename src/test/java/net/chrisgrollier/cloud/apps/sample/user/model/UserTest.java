@@ -0,0 +1,29 @@
+package net.chrisgrollier.cloud.apps.sample.user.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+
+public class UserTest {
+
+	@Test
+	public void passwordsAreMaskedWhenRendered() {
+		final User user = new User();
+		user.setUsername("jdoe");
+		user.setPassword("secret");
+		final UserEntity entity = new UserEntity();
+		entity.setUsername("jdoe");
+		entity.setPassword("secret");
+
+		assertThat(user.toString()).contains("username=jdoe", "password=******").doesNotContain("secret");
+		assertThat(entity.toString()).contains("username=jdoe", "password=******").doesNotContain("secret");
+	}
+
+	@Test
+	public void missingPasswordsAreRenderedAsNull() {
+		assertThat(new User().toString()).contains("password=null");
+	}
+
+}
@@ -0,0 +1,204 @@
+package net.chrisgrollier.cloud.apps.sample.user.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.chrisgrollier.cloud.apps.common.datasource.ReadYourWritesTracker;
+import net.chrisgrollier.cloud.apps.common.exception.http.BadRequestException;
+import net.chrisgrollier.cloud.apps.common.i18n.MessageManager;
+import net.chrisgrollier.cloud.apps.common.util.concurrent.BatchLoader;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UserCache;
+import net.chrisgrollier.cloud.apps.sample.user.cache.UsernameFilter;
+import net.chrisgrollier.cloud.apps.sample.user.dao.UserDAO;
+import net.chrisgrollier.cloud.apps.sample.user.entity.Role;
+import net.chrisgrollier.cloud.apps.sample.user.entity.UserEntity;
+import net.chrisgrollier.cloud.apps.sample.user.mapping.UserModelEntityMapperImpl;
+import net.chrisgrollier.cloud.apps.sample.user.model.User;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserBatchItem;
+import net.chrisgrollier.cloud.apps.sample.user.model.UserLookup;
+
+public class UserServiceTest {
+
+    private final UserDAO userDAO = mock(UserDAO.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final MessageManager messageManager = mock(MessageManager.class);
+    private final ReadYourWritesTracker tracker = mock(ReadYourWritesTracker.class);
+    private final UserCache userCache = new UserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), Duration.ZERO);
+    private UserService userService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(messageManager.getMessage("user.batch.conflict")).thenReturn("Username or email already used");
+        when(messageManager.getMessage("user.batch.error")).thenReturn("Unable to add user");
+        final ObjectProvider<BatchLoader<Integer, User>> loader = mock(ObjectProvider.class);
+        final ObjectProvider<ReadYourWritesTracker> trackerProvider = mock(ObjectProvider.class);
+        when(trackerProvider.getIfAvailable()).thenReturn(tracker);
+        userService = new UserService(userDAO, new UserModelEntityMapperImpl(), Validation.buildDefaultValidatorFactory().getValidator(),
+                transactionManager, userCache, mock(UsernameFilter.class), mock(ApplicationEventPublisher.class), messageManager,
+                new SimpleMeterRegistry(), loader, trackerProvider);
+        ReflectionTestUtils.setField(userService, "entityManager", mock(EntityManager.class));
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 10);
+        ReflectionTestUtils.setField(userService, "batchMaxSize", 100);
+        ReflectionTestUtils.setField(userService, "multiGetChunkSize", 2);
+        ReflectionTestUtils.setField(userService, "multiGetMaxSize", 10);
+    }
+
+    @Test
+    public void exportsClearThePersistenceContextEveryInterval() {
+        final EntityManager entityManager = mock(EntityManager.class);
+        ReflectionTestUtils.setField(userService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(userService, "exportClearInterval", 2);
+        when(userDAO.streamAll()).thenReturn(Stream.of(entity(1), entity(2), entity(3), entity(4), entity(5)));
+        final List<User> exported = new ArrayList<>();
+
+        assertThat(userService.exportUsers(exported::add)).isEqualTo(5);
+
+        assertThat(exported).extracting(User::getId).containsExactly(1, 2, 3, 4, 5);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    public void exportsNeverClearThePersistenceContextWithoutInterval() {
+        final EntityManager entityManager = mock(EntityManager.class);
+        ReflectionTestUtils.setField(userService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(userService, "exportClearInterval", 0);
+        when(userDAO.streamAll()).thenReturn(Stream.of(entity(1), entity(2)));
+
+        assertThat(userService.exportUsers(user -> { })).isEqualTo(2);
+
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    public void batchesAddValidUsersInChunks() {
+        when(userDAO.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        final List<UserBatchItem> items = userService.addUsers(Arrays.asList(user("jdoe"), user("jane")));
+
+        assertThat(items).extracting(UserBatchItem::getStatus).containsExactly(HttpStatus.CREATED, HttpStatus.CREATED);
+        verify(userDAO).saveAll(anyIterable());
+    }
+
+    @Test
+    public void batchesReportTheFailureOfEachUser() {
+        when(userDAO.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(userDAO.save(any())).thenAnswer(invocation -> {
+            final UserEntity entity = invocation.getArgument(0);
+            if ("taken".equals(entity.getUsername())) {
+                throw new DataIntegrityViolationException("ERROR: duplicate key value violates unique constraint \"uk_username\"");
+            }
+            if ("broken".equals(entity.getUsername())) {
+                throw new IllegalStateException("connection reset");
+            }
+            entity.setId(1);
+            return entity;
+        });
+
+        final List<UserBatchItem> items = userService.addUsers(Arrays.asList(user("jdoe"), new User(), user("taken"), user("broken")));
+
+        assertThat(items).extracting(UserBatchItem::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(items).extracting(UserBatchItem::getStatus).containsExactly(HttpStatus.CREATED, HttpStatus.BAD_REQUEST,
+                HttpStatus.CONFLICT, HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(items.get(0).getUser().getId()).isEqualTo(1);
+        assertThat(items.get(1).getErrors()).isNotEmpty();
+        assertThat(messages(items.get(2))).containsExactly("Username or email already used");
+        assertThat(messages(items.get(3))).containsExactly("Unable to add user");
+    }
+
+    @Test
+    public void tooLargeBatchesAreRejected() {
+        final List<User> users = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            users.add(user("user" + i));
+        }
+
+        assertThatThrownBy(() -> userService.addUsers(users)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void lookupsFetchChunksAndReportMissingIds() {
+        when(userDAO.findAllById(anyIterable())).thenAnswer(invocation -> {
+            final List<UserEntity> found = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>> getArgument(0)) {
+                if (id % 2 == 1) {
+                    found.add(entity(id));
+                }
+            }
+            return found;
+        });
+
+        final UserLookup lookup = userService.findUsers(Arrays.asList(3, 1, 2, 3, null, 5));
+
+        assertThat(lookup.getUsers()).extracting(User::getId).containsExactly(3, 1, 5);
+        assertThat(lookup.getMissing()).containsExactly(2);
+        verify(userDAO, times(2)).findAllById(anyCollection());
+    }
+
+    @Test
+    public void pinnedSessionsBypassTheCache() {
+        when(userDAO.findById(1)).thenReturn(Optional.of(entity(1)));
+        userService.findUser(1);
+        userService.findUser(1);
+        verify(userDAO, times(1)).findById(1);
+
+        when(tracker.isPinned()).thenReturn(true);
+        userService.findUser(1);
+
+        verify(userDAO, times(2)).findById(1);
+    }
+
+    private static Collection<String> messages(UserBatchItem item) {
+        return item.getErrors().stream().map(error -> error.getMessage()).collect(Collectors.toList());
+    }
+
+    private static User user(String username) {
+        final User user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setRole(Role.USER);
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        return user;
+    }
+
+    private static UserEntity entity(Integer id) {
+        final UserEntity entity = new UserEntity();
+        entity.setId(id);
+        entity.setUsername("user" + id);
+        return entity;
+    }
+
+}